@@ -11,6 +11,21 @@ import lombok.Data;
  * Properties:
  * - library.max-active-loans: Maximum number of active loans per member (default: 5)
  * - library.loan-duration-days: Loan duration in days (default: 14)
+ * - library.summary-reconciliation-batch-size: Users per loan summary reconciliation batch (default: 500)
+ * - library.summary-reconciliation-interval: Milliseconds between reconciliation runs (default: 3600000)
+ * - library.inventory-retry-max-retries: Retries of a borrow/return/book update after an optimistic lock conflict (default: 3)
+ * - library.inventory-retry-delay: Base backoff in milliseconds before the first retry, jittered (default: 10)
+ * - library.inventory-retry-max-delay: Upper bound in milliseconds for the exponential backoff (default: 200)
+ * - library.inventory-conflict-tagged-books: Distinct books tagged individually in conflict metrics (default: 100)
+ * - library.borrow-gate-stripes: Lock stripes of the in-process borrow admission gate (default: 64)
+ * - library.borrow-gate-ttl: Milliseconds the gate trusts a book's last seen available copies (default: 5000)
+ * - library.sharded-inventory-threshold: Total copies from which a book's inventory is sharded, 0 to disable (default: 0)
+ * - library.sharded-inventory-slots: Slot rows a sharded book's copies are split across (default: 8)
+ * - library.sharded-inventory-refresh-interval: Milliseconds between refreshes of sharded books' available copies (default: 5000)
+ * - library.idempotency-ttl: Milliseconds a borrow/return response is replayed for its Idempotency-Key (default: 86400000)
+ * - library.idempotency-max-keys: Idempotency keys remembered at once (default: 100000)
+ * - library.request-concurrency-limit: API requests handled at once on virtual threads, 0 for the JDBC pool size (default: 0)
+ * - library.request-queue-timeout: Milliseconds a request waits for a permit before a 503 (default: 5000)
  */
 @Component
 @ConfigurationProperties(prefix = "library")
@@ -26,4 +41,79 @@ public class LibraryProperties {
      * Number of days a book can be borrowed for.
      */
     private int loanDurationDays = 14;
+
+    /**
+     * Number of users whose loan summaries are reconciled per transaction.
+     */
+    private int summaryReconciliationBatchSize = 500;
+
+    /**
+     * Milliseconds between loan summary reconciliation runs.
+     */
+    private long summaryReconciliationInterval = 3_600_000;
+
+    /**
+     * Number of times an inventory unit of work is re-run after an optimistic lock conflict.
+     */
+    private int inventoryRetryMaxRetries = 3;
+
+    /**
+     * Base backoff in milliseconds before the first retry. Each wait is jittered by up to this amount.
+     */
+    private long inventoryRetryDelay = 10;
+
+    /**
+     * Upper bound in milliseconds for the exponential retry backoff.
+     */
+    private long inventoryRetryMaxDelay = 200;
+
+    /**
+     * Number of distinct books that get their own tag in the conflict metrics; later books share the tag "other".
+     */
+    private int inventoryConflictTaggedBooks = 100;
+
+    /**
+     * Number of lock stripes the borrow admission gate spreads books over, rounded up to a power of two.
+     */
+    private int borrowGateStripes = 64;
+
+    /**
+     * Milliseconds the borrow admission gate trusts the available copies it last saw for a book.
+     */
+    private long borrowGateTtl = 5_000;
+
+    /**
+     * Books with at least this many total copies keep their available copies in slot rows. 0 disables sharding.
+     */
+    private long shardedInventoryThreshold = 0;
+
+    /**
+     * Number of slot rows a sharded book's available copies are split across.
+     */
+    private int shardedInventorySlots = 8;
+
+    /**
+     * Milliseconds between refreshes of the aggregated available copies of sharded books.
+     */
+    private long shardedInventoryRefreshInterval = 5_000;
+
+    /**
+     * Milliseconds a borrow or return response is kept for replay under its Idempotency-Key.
+     */
+    private long idempotencyTtl = 86_400_000;
+
+    /**
+     * Maximum number of Idempotency-Keys remembered at once, beyond which the least used are dropped.
+     */
+    private long idempotencyMaxKeys = 100_000;
+
+    /**
+     * API requests handled at once when running on virtual threads. 0 uses the JDBC pool size.
+     */
+    private int requestConcurrencyLimit = 0;
+
+    /**
+     * Milliseconds a request waits for a permit before it is rejected with 503.
+     */
+    private long requestQueueTimeout = 5_000;
 }
@@ -0,0 +1,146 @@
+package com.demandlane.booklending.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.demandlane.booklending.exception.RequestQueueTimeoutException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Caps how many API requests run at once when requests are served on virtual threads
+ * ({@code spring.threads.virtual.enabled=true}).
+ * <p>
+ * With platform threads the Tomcat pool bounds concurrency by itself. Virtual threads remove that
+ * bound, and every request would then queue inside the JDBC pool, where a wait that runs out fails
+ * the request after the work before it was already done. Instead, a fair semaphore with
+ * {@code library.request-concurrency-limit} permits (by default the JDBC pool size) admits requests
+ * in arrival order before they reach the controller. A request that waits longer than
+ * {@code library.request-queue-timeout} milliseconds is answered with 503.
+ * <p>
+ * Per endpoint, the time spent waiting for a permit is recorded in {@code library.requests.queue-time}
+ * and the number of requests being handled in {@code library.requests.in-flight}, both tagged with
+ * {@code method} and {@code uri} like {@code http.server.requests}. In-flight counts are kept in both
+ * modes, so they can be compared.
+ * <p>
+ * A request that goes async, such as an SSE stream, gives its permit back once its handler returns;
+ * the stream then holds no thread or connection. The dispatch that completes it is not limited.
+ */
+@Component
+public class RequestConcurrencyLimiter implements AsyncHandlerInterceptor {
+
+    private static final String ENDPOINT_ATTRIBUTE = RequestConcurrencyLimiter.class.getName() + ".endpoint";
+    private static final String PERMIT_ATTRIBUTE = RequestConcurrencyLimiter.class.getName() + ".permit";
+
+    private final MeterRegistry meterRegistry;
+    private final Semaphore permits;
+    private final long queueTimeoutMillis;
+    private final Counter timeouts;
+    private final Map<Endpoint, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public RequestConcurrencyLimiter(LibraryProperties libraryProperties,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                     @Value("${spring.datasource.hikari.maximum-pool-size:10}") int jdbcPoolSize) {
+        this.meterRegistry = meterRegistry;
+        int limit = libraryProperties.getRequestConcurrencyLimit() > 0
+                ? libraryProperties.getRequestConcurrencyLimit()
+                : jdbcPoolSize;
+        this.permits = virtualThreads ? new Semaphore(limit, true) : null;
+        this.queueTimeoutMillis = libraryProperties.getRequestQueueTimeout();
+        this.timeouts = Counter.builder("library.requests.queue-timeouts")
+                .description("Requests rejected after waiting too long for a request permit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Endpoint endpoint = Endpoint.of(request);
+        if (permits != null) {
+            acquire(endpoint);
+            request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        }
+        inFlight(endpoint).incrementAndGet();
+        request.setAttribute(ENDPOINT_ATTRIBUTE, endpoint);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(ENDPOINT_ATTRIBUTE) instanceof Endpoint endpoint) {
+            inFlight(endpoint).decrementAndGet();
+            request.removeAttribute(ENDPOINT_ATTRIBUTE);
+        }
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            permits.release();
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+        }
+    }
+
+    private void acquire(Endpoint endpoint) {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        Timer.builder("library.requests.queue-time")
+                .description("Time API requests waited for a request permit")
+                .tag("method", endpoint.method())
+                .tag("uri", endpoint.uri())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            timeouts.increment();
+            throw new RequestQueueTimeoutException("The server is busy, please retry shortly");
+        }
+    }
+
+    private AtomicInteger inFlight(Endpoint endpoint) {
+        return inFlight.computeIfAbsent(endpoint, e -> {
+            AtomicInteger count = new AtomicInteger();
+            Gauge.builder("library.requests.in-flight", count, AtomicInteger::get)
+                    .description("API requests currently being handled")
+                    .tag("method", e.method())
+                    .tag("uri", e.uri())
+                    .register(meterRegistry);
+            return count;
+        });
+    }
+
+    private record Endpoint(String method, String uri) {
+
+        static Endpoint of(HttpServletRequest request) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return new Endpoint(request.getMethod(), pattern == null ? "UNKNOWN" : pattern.toString());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.demandlane.booklending.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Hibernate second-level cache for {@code Book} and {@code User}, held in process by Caffeine.
+ * <p>
+ * Regions are read-write: saves through the entity manager update the cached entry when their
+ * transaction commits. The guarded updates of {@code books} (copy claims, releases and the sharded
+ * aggregate refresh) are native statements that lock only the books they changed through
+ * {@link SecondLevelCacheLocks}, so {@code availableCopies} is not served from the cache while such
+ * a write is in flight, and the rest of the region stays warm. Entries also expire after
+ * {@code entity-cache.ttl}, which bounds how long another instance's writes stay invisible here.
+ * <p>
+ * Each application context gets its own cache manager, so contexts sharing a JVM (tests,
+ * benchmarks) never see each other's entries.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String BOOKS_REGION = "books";
+    public static final String USERS_REGION = "users";
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${entity-cache.max-size:10000}") long maxSize,
+                                                @Value("${entity-cache.ttl:300000}") long ttlMillis) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("second-level-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(BOOKS_REGION, bounded(maxSize, ttlMillis));
+        cacheManager.createCache(USERS_REGION, bounded(maxSize, ttlMillis));
+        cacheManager.createCache(QUERY_RESULTS_REGION, bounded(maxSize, ttlMillis));
+        // Must outlive every cached query result, or stale results could be served
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, unbounded());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put("hibernate.javax.cache.cache_manager", secondLevelCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, long ttlMillis) {
+        CaffeineConfiguration<Object, Object> configuration = unbounded();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(Duration.ofMillis(ttlMillis).toNanos()));
+        return configuration;
+    }
+
+    private static CaffeineConfiguration<Object, Object> unbounded() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate stores its own disassembled copies, another copy per read would be wasted
+        configuration.setStoreByValue(false);
+        return configuration;
+    }
+}
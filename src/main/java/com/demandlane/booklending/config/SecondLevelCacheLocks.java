@@ -0,0 +1,47 @@
+package com.demandlane.booklending.config;
+
+import java.util.Collection;
+
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps the second-level cache consistent for rows written by native statements, which Hibernate
+ * cannot trace back to cached entities.
+ * <p>
+ * Each changed entry is soft-locked the way Hibernate locks an entity it updates itself: until the
+ * transaction completes, lookups of that id go to the database and nothing is cached for it, and
+ * afterwards a value read before the commit can no longer be put back. Every other entry of the
+ * region stays cached.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheLocks {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Locks the cached entries of the given ids until the current transaction completes. Must be
+     * called inside the transaction that wrote them.
+     */
+    public void lockUntilCompletion(Class<?> entityClass, Collection<?> ids) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(entityClass);
+        EntityDataAccess access = persister.getCacheAccessStrategy();
+        if (access == null) {
+            return;
+        }
+        for (Object id : ids) {
+            Object key = access.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+            SoftLock lock = access.lockItem(session, key, null);
+            session.getTransactionCompletionCallbacks()
+                    .registerCallback((success, completed) -> access.unlockItem(completed, key, lock));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.demandlane.booklending.config;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Publishes hits, misses and puts of the second-level cache regions under the same
+ * {@code cache.gets} / {@code cache.puts} names and {@code cache} tag as the Caffeine caches,
+ * so the hit ratio of each region reads like any other cache. Relies on
+ * {@code hibernate.generate_statistics}.
+ */
+@Component
+public class SecondLevelCacheMetrics {
+
+    private static final List<String> REGIONS = List.of(
+            SecondLevelCacheConfig.BOOKS_REGION,
+            SecondLevelCacheConfig.USERS_REGION,
+            SecondLevelCacheConfig.QUERY_RESULTS_REGION);
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String region : REGIONS) {
+            FunctionCounter.builder("cache.gets", statistics, stats -> count(stats, region, CacheRegionStatistics::getHitCount))
+                    .tags("cache", region, "result", "hit")
+                    .description("Second-level cache lookups that found an entry")
+                    .register(meterRegistry);
+            FunctionCounter.builder("cache.gets", statistics, stats -> count(stats, region, CacheRegionStatistics::getMissCount))
+                    .tags("cache", region, "result", "miss")
+                    .description("Second-level cache lookups that went to the database")
+                    .register(meterRegistry);
+            FunctionCounter.builder("cache.puts", statistics, stats -> count(stats, region, CacheRegionStatistics::getPutCount))
+                    .tags("cache", region)
+                    .description("Entries put into the second-level cache")
+                    .register(meterRegistry);
+        }
+    }
+
+    // Looked up on every read, as clearing the statistics replaces the per-region objects
+    private static double count(Statistics statistics, String region, ToLongFunction<CacheRegionStatistics> counter) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        return regionStatistics == null ? 0 : counter.applyAsLong(regionStatistics);
+    }
+}
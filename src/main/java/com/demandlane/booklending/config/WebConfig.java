@@ -0,0 +1,22 @@
+package com.demandlane.booklending.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Spring MVC configuration. API requests pass through the {@link RequestConcurrencyLimiter}.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RequestConcurrencyLimiter requestConcurrencyLimiter;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestConcurrencyLimiter).addPathPatterns("/api/**");
+    }
+}
@@ -1,5 +1,7 @@
 package com.demandlane.booklending.controller;
 
+import java.security.Principal;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -8,6 +10,7 @@ import com.demandlane.booklending.controller.api.AuthApi;
 import com.demandlane.booklending.dto.AuthDto;
 import com.demandlane.booklending.dto.UserDto;
 import com.demandlane.booklending.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -22,7 +25,13 @@ public class AuthController implements AuthApi {
     }
 
     @Override
-    public ResponseEntity<AuthDto.LoginResponse> login(@RequestBody AuthDto.LoginRequest request) {
-        return ResponseEntity.ok(authService.login(request));
+    public ResponseEntity<AuthDto.LoginResponse> login(@RequestBody AuthDto.LoginRequest request, HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(authService.login(request, httpRequest.getRemoteAddr()));
+    }
+
+    @Override
+    public ResponseEntity<Void> logout(Principal principal) {
+        authService.logout(principal);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -1,15 +1,26 @@
 package com.demandlane.booklending.controller;
 
+import java.util.List;
+
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.demandlane.booklending.controller.api.BookApi;
 import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.dto.ChangeFeedResponse;
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
 import com.demandlane.booklending.dto.PageResponse;
 import com.demandlane.booklending.service.BookService;
+import com.demandlane.booklending.service.CatalogCache;
+import com.demandlane.booklending.service.InventoryRetry;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -17,17 +28,49 @@ import lombok.RequiredArgsConstructor;
 public class BookController implements BookApi {
 
     private final BookService bookService;
+    private final ConditionalGet conditionalGet;
+    private final InventoryRetry inventoryRetry;
 
     @Override
     public ResponseEntity<PageResponse<BookDto.Response>> findAll(
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
-            BookDto.Filter filter) {
-        return ResponseEntity.ok(PageResponse.of(bookService.findAll(filter, pageable)));
+            @RequestParam(defaultValue = "EXACT") CountMode count,
+            BookDto.Filter filter,
+            WebRequest request) {
+        return conditionalGet.list(request, () -> bookService.revision(filter),
+                () -> bookService.findAll(filter, pageable, count));
+    }
+
+    @Override
+    public ResponseEntity<CursorPageResponse<BookDto.Response>> findAllByCursor(
+            @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @RequestParam(required = false) String cursor,
+            BookDto.Filter filter,
+            WebRequest request) {
+        return conditionalGet.list(request, () -> bookService.revision(filter),
+                () -> bookService.findAllByCursor(filter, cursor, pageable));
+    }
+
+    @Override
+    public ResponseEntity<ChangeFeedResponse<BookDto.Response>> changes(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(bookService.changes(since, size));
+    }
+
+    @Override
+    public SseEmitter availability(@RequestParam(required = false) List<Long> bookIds) {
+        return bookService.subscribeAvailability(bookIds);
     }
 
     @Override
-    public ResponseEntity<BookDto.Response> findById(@PathVariable Long id) {
-        return ResponseEntity.ok(bookService.findById(id));
+    public ResponseEntity<byte[]> findById(@PathVariable Long id) {
+        // Pre-serialized: the byte array converter copies the body to the output stream as is
+        CatalogCache.SerializedBook book = bookService.findSerializedById(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(book.etag())
+                .body(book.json());
     }
 
     @Override
@@ -36,8 +79,14 @@ public class BookController implements BookApi {
     }
 
     @Override
-    public ResponseEntity<BookDto.Response> update(@PathVariable Long id, @RequestBody BookDto.Request request) {
-        return ResponseEntity.ok(bookService.update(id, request));
+    public ResponseEntity<BookDto.Response> update(@PathVariable Long id,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                   @RequestBody BookDto.Request request) {
+        if (ifMatch == null) {
+            // a retry would re-apply the stale count and silently undo the borrow it raced with
+            return ResponseEntity.ok(bookService.update(id, request, null));
+        }
+        return ResponseEntity.ok(inventoryRetry.run("update", id, () -> bookService.update(id, request, ifMatch)));
     }
 
     @Override
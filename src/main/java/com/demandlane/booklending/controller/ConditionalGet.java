@@ -0,0 +1,99 @@
+package com.demandlane.booklending.controller;
+
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import com.demandlane.booklending.dto.Revision;
+import lombok.RequiredArgsConstructor;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Answers conditional GETs from a {@link Revision} read before the response body. When the
+ * request's {@code If-None-Match} or {@code If-Modified-Since} still matches, the response is a
+ * bodiless 304 and the body is never loaded; otherwise the body is loaded and sent with the
+ * {@code ETag} and {@code Last-Modified} headers. Lists only carry an {@code ETag} and only read
+ * the revision for conditional requests; see {@link #list}.
+ * <p>
+ * Handlers return the result as is; null means the 304 has been written.
+ */
+@Component
+@RequiredArgsConstructor
+final class ConditionalGet {
+
+    private final JsonMapper jsonMapper;
+
+    /**
+     * For a single resource. An empty revision skips the check, so the body supplier reports the
+     * missing or forbidden resource as usual.
+     */
+    <T> ResponseEntity<T> resource(WebRequest request, Revision revision, Supplier<T> body) {
+        if (!revision.isEmpty() && request.checkNotModified(revision.eTag(), revision.lastModifiedMillis())) {
+            return null;
+        }
+        return ResponseEntity.ok(body.get());
+    }
+
+    /**
+     * For a list page. The set's revision is only read when the request is conditional; an
+     * unconditional request loads the page and tags it with a digest of its content instead, so
+     * that plain listing costs no aggregate query.
+     * <p>
+     * A conditional request is first checked against the revision of the whole filtered set, which
+     * needs no page. When that tag does not match, the page is loaded and checked against its own
+     * digest, as handed out with a plain listing; either way the response carries the revision's
+     * tag from then on, so the next check of the same client is answered without loading the page.
+     * Both tags are weak: estimated totals may differ between equivalent responses.
+     * <p>
+     * Lists have no {@code Last-Modified}, and {@code If-Modified-Since} is ignored: a row that is
+     * deleted or leaves the filter takes its {@code updatedAt} with it, so the latest remaining one
+     * does not move. The tag covers the row count as well.
+     */
+    <T> ResponseEntity<T> list(WebRequest request, Supplier<Revision> revision, Supplier<T> body) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            T page = body.get();
+            return ResponseEntity.ok().eTag(pageTag(page)).body(page);
+        }
+        if (request.checkNotModified("W/" + revision.get().eTag())) {
+            return null;
+        }
+        T page = body.get();
+        if (matchesIfNoneMatch(request, pageTag(page))) {
+            // The revision's ETag is already set on the response
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Weak tag of the page as it is written out, with the application's own mapper.
+     */
+    private String pageTag(Object page) {
+        return "W/\"p-" + DigestUtils.md5DigestAsHex(jsonMapper.writeValueAsBytes(page)) + "\"";
+    }
+
+    private static boolean matchesIfNoneMatch(WebRequest request, String eTag) {
+        String[] headers = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (headers == null) {
+            return false;
+        }
+        String opaque = eTag.substring(2);
+        for (String header : headers) {
+            for (String candidate : header.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.startsWith("W/")) {
+                    trimmed = trimmed.substring(2);
+                }
+                if (trimmed.equals(opaque)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
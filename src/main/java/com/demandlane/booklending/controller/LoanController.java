@@ -7,10 +7,18 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.demandlane.booklending.controller.api.LoanApi;
 import com.demandlane.booklending.dto.LoanDto;
+import com.demandlane.booklending.dto.ChangeFeedResponse;
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
 import com.demandlane.booklending.dto.PageResponse;
+import com.demandlane.booklending.security.JwtPrincipal;
+import com.demandlane.booklending.service.BorrowAdmissionGate;
+import com.demandlane.booklending.service.IdempotencyStore;
+import com.demandlane.booklending.service.InventoryRetry;
 import com.demandlane.booklending.service.LoanService;
 import com.demandlane.booklending.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -22,28 +30,67 @@ import org.springframework.security.core.context.SecurityContextHolder;
 public class LoanController implements LoanApi {
 
     private final LoanService loanService;
+    private final ConditionalGet conditionalGet;
     private final UserService userService;
+    private final InventoryRetry inventoryRetry;
+    private final BorrowAdmissionGate borrowGate;
+    private final IdempotencyStore idempotencyStore;
 
     @Override
     public ResponseEntity<PageResponse<LoanDto.Response>> findAll(
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
-            LoanDto.Filter filter) {
-        return ResponseEntity.ok(PageResponse.of(loanService.findAll(filter, pageable)));
+            @RequestParam(defaultValue = "EXACT") CountMode count,
+            LoanDto.Filter filter,
+            WebRequest request) {
+        return conditionalGet.list(request, () -> loanService.revision(filter),
+                () -> loanService.findAll(filter, pageable, count));
+    }
+
+    @Override
+    public ResponseEntity<CursorPageResponse<LoanDto.Response>> findAllByCursor(
+            @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @RequestParam(required = false) String cursor,
+            LoanDto.Filter filter,
+            WebRequest request) {
+        return conditionalGet.list(request, () -> loanService.revision(filter),
+                () -> loanService.findAllByCursor(filter, cursor, pageable));
+    }
+
+    @Override
+    public ResponseEntity<ChangeFeedResponse<LoanDto.Response>> changes(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(loanService.changes(since, size));
     }
 
     @Override
     public ResponseEntity<PageResponse<LoanDto.Response>> findAllOwned(
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             LoanDto.Filter filter,
-            Principal principal) {
-        filter.setUserId(userService.findByEmail(principal.getName()).getId());
-        return ResponseEntity.ok(PageResponse.of(loanService.findAll(filter, pageable)));
+            Principal principal,
+            WebRequest request) {
+        filter.setUserId(currentUserId(principal));
+        return conditionalGet.list(request, () -> loanService.revision(filter),
+                () -> loanService.findAll(filter, pageable, count));
     }
 
     @Override
-    public ResponseEntity<LoanDto.Response> findById(@PathVariable Long id) {
+    public ResponseEntity<CursorPageResponse<LoanDto.Response>> findAllOwnedByCursor(
+            @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @RequestParam(required = false) String cursor,
+            LoanDto.Filter filter,
+            Principal principal,
+            WebRequest request) {
+        filter.setUserId(currentUserId(principal));
+        return conditionalGet.list(request, () -> loanService.revision(filter),
+                () -> loanService.findAllByCursor(filter, cursor, pageable));
+    }
+
+    @Override
+    public ResponseEntity<LoanDto.Response> findById(@PathVariable Long id, WebRequest request) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return ResponseEntity.ok(loanService.findById(id, auth));
+        return conditionalGet.resource(request, loanService.revision(id, auth), () -> loanService.findById(id, auth));
     }
 
     @Override
@@ -63,13 +110,37 @@ public class LoanController implements LoanApi {
     }
 
     @Override
-    public ResponseEntity<LoanDto.Response> borrowBook(@RequestBody LoanDto.BorrowRequest request, Principal principal) {
-        Long userId = userService.findByEmail(principal.getName()).getId();
-        return ResponseEntity.status(HttpStatus.CREATED).body(loanService.borrowBook(userId, request.getBookId()));
+    public ResponseEntity<LoanDto.Response> borrowBook(@RequestBody LoanDto.BorrowRequest request,
+                                                       @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                       Principal principal) {
+        Long userId = currentUserId(principal);
+        Long bookId = request.getBookId();
+        IdempotencyStore.Outcome<LoanDto.Response> outcome = idempotencyStore.execute(userId, idempotencyKey, "borrow", bookId,
+                () -> borrowGate.admit(bookId, () -> loanService.borrowBook(userId, bookId)));
+        return replayAware(ResponseEntity.status(HttpStatus.CREATED), outcome);
     }
 
     @Override
-    public ResponseEntity<LoanDto.Response> returnBook(@PathVariable Long id) {
-        return ResponseEntity.ok(loanService.returnBook(id));
+    public ResponseEntity<LoanDto.Response> returnBook(@PathVariable Long id,
+                                                       @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                       Principal principal) {
+        // Only keyed requests need the caller's id, to scope the key
+        Long userId = idempotencyKey == null ? null : currentUserId(principal);
+        IdempotencyStore.Outcome<LoanDto.Response> outcome = idempotencyStore.execute(userId, idempotencyKey, "return", id,
+                () -> inventoryRetry.run("return", null, () -> loanService.returnBook(id)));
+        return replayAware(ResponseEntity.ok(), outcome);
+    }
+
+    private static ResponseEntity<LoanDto.Response> replayAware(ResponseEntity.BodyBuilder response,
+                                                                IdempotencyStore.Outcome<LoanDto.Response> outcome) {
+        if (outcome.replayed()) {
+            response.header(IDEMPOTENT_REPLAYED, "true");
+        }
+        return response.body(outcome.value());
+    }
+
+    private Long currentUserId(Principal principal) {
+        return JwtPrincipal.userIdOf(principal)
+                .orElseGet(() -> userService.findByEmail(principal.getName()).getId());
     }
 }
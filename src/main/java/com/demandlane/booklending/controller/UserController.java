@@ -7,10 +7,14 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.demandlane.booklending.controller.api.UserApi;
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
 import com.demandlane.booklending.dto.PageResponse;
 import com.demandlane.booklending.dto.UserDto;
+import com.demandlane.booklending.security.JwtPrincipal;
 import com.demandlane.booklending.service.UserService;
 import lombok.RequiredArgsConstructor;
 
@@ -19,22 +23,38 @@ import lombok.RequiredArgsConstructor;
 public class UserController implements UserApi {
 
     private final UserService userService;
+    private final ConditionalGet conditionalGet;
 
     @Override
     public ResponseEntity<UserDto.Response> me(Principal principal) {
-        return ResponseEntity.ok(userService.findByEmail(principal.getName()));
+        return ResponseEntity.ok(JwtPrincipal.userIdOf(principal)
+                .map(userService::findById)
+                .orElseGet(() -> userService.findByEmail(principal.getName())));
     }
 
     @Override
     public ResponseEntity<PageResponse<UserDto.Response>> findAll(
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
-            UserDto.Filter filter) {
-        return ResponseEntity.ok(PageResponse.of(userService.findAll(filter, pageable)));
+            @RequestParam(defaultValue = "EXACT") CountMode count,
+            UserDto.Filter filter,
+            WebRequest request) {
+        return conditionalGet.list(request, () -> userService.revision(filter),
+                () -> userService.findAll(filter, pageable, count));
     }
 
     @Override
-    public ResponseEntity<UserDto.Response> findById(@PathVariable Long id) {
-        return ResponseEntity.ok(userService.findById(id));
+    public ResponseEntity<CursorPageResponse<UserDto.Response>> findAllByCursor(
+            @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @RequestParam(required = false) String cursor,
+            UserDto.Filter filter,
+            WebRequest request) {
+        return conditionalGet.list(request, () -> userService.revision(filter),
+                () -> userService.findAllByCursor(filter, cursor, pageable));
+    }
+
+    @Override
+    public ResponseEntity<UserDto.Response> findById(@PathVariable Long id, WebRequest request) {
+        return conditionalGet.resource(request, userService.revision(id), () -> userService.findById(id));
     }
 
     @Override
@@ -52,4 +72,10 @@ public class UserController implements UserApi {
         userService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    @Override
+    public ResponseEntity<Void> revokeTokens(@PathVariable Long id) {
+        userService.revokeTokens(id);
+        return ResponseEntity.noContent().build();
+    }
 }
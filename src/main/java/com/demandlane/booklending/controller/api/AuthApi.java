@@ -1,5 +1,7 @@
 package com.demandlane.booklending.controller.api;
 
+import java.security.Principal;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -7,12 +9,15 @@ import com.demandlane.booklending.dto.AuthDto;
 import com.demandlane.booklending.dto.UserDto;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 
-@Tag(name = "Authentication", description = "User registration and login endpoints (Public)")
+@Tag(name = "Authentication", description = "User registration and login endpoints (Public, except logout)")
 @RequestMapping("/api/v1/auth")
 public interface AuthApi {
 
@@ -31,14 +36,29 @@ public interface AuthApi {
 
     @Operation(
         summary = "Login",
-        description = "Authenticate with email and password. Returns a JWT token to use in the Authorization header."
+        description = "Authenticate with email and password. Returns a JWT token to use in the Authorization header. "
+                    + "After repeated failures the email or client address is locked out for a while."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Login successful - returns JWT token"),
-        @ApiResponse(responseCode = "401", description = "Invalid email or password", content = @Content)
+        @ApiResponse(responseCode = "401", description = "Invalid email or password", content = @Content),
+        @ApiResponse(responseCode = "429", description = "Too many failed attempts - see Retry-After", content = @Content)
     })
     @PostMapping("/login")
     ResponseEntity<AuthDto.LoginResponse> login(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Login credentials (email and password)", required = true)
-            @RequestBody AuthDto.LoginRequest request);
+            @RequestBody AuthDto.LoginRequest request,
+            @Parameter(hidden = true) HttpServletRequest httpRequest);
+
+    @Operation(
+        summary = "Logout",
+        description = "Revoke the JWT token sent with this request. Other tokens of the same user stay valid."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "204", description = "Token revoked"),
+        @ApiResponse(responseCode = "401", description = "Missing, invalid or already revoked token", content = @Content)
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    @PostMapping("/logout")
+    ResponseEntity<Void> logout(@Parameter(hidden = true) Principal principal);
 }
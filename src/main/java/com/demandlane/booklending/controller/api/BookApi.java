@@ -1,17 +1,26 @@
 package com.demandlane.booklending.controller.api;
 
+import java.util.List;
+
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.dto.ChangeFeedResponse;
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
 import com.demandlane.booklending.dto.PageResponse;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -28,26 +37,89 @@ public interface BookApi {
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Books retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
         @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content)
     })
     @GetMapping
     ResponseEntity<PageResponse<BookDto.Response>> findAll(
             @ParameterObject
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
-            @Parameter(description = "Filter by title, author, or ISBN")
-            BookDto.Filter filter);
+            @Parameter(description = "How to compute totalElements: EXACT runs a count query, NONE skips totals, ESTIMATED uses a cached count")
+            @RequestParam(defaultValue = "EXACT") CountMode count,
+            @Parameter(description = "Filter by title, author, or ISBN; match selects CONTAINS (default), PREFIX or EXACT")
+            BookDto.Filter filter,
+            WebRequest request);
+
+    @Operation(
+        summary = "Get all books by cursor",
+        description = "Keyset-paginated list of books without a total count. Sorts by the first sort property with id as tiebreaker; "
+                    + "pass nextCursor from the previous response to fetch the next page. The page parameter is ignored."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Books retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content)
+    })
+    @GetMapping("/cursor")
+    ResponseEntity<CursorPageResponse<BookDto.Response>> findAllByCursor(
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @Parameter(description = "nextCursor from the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Filter by title, author, or ISBN; match selects CONTAINS (default), PREFIX or EXACT")
+            BookDto.Filter filter,
+            WebRequest request);
+
+    @Operation(
+        summary = "Get books changes",
+        description = "Change feed for keeping a local copy: books created, updated or deleted after the cursor, oldest first. "
+                    + "Deleted books come as tombstones. Store nextCursor, pass it as since on the next poll, and poll again at once "
+                    + "while hasMore is true. A change shows up once the transactions that started before it have finished."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Changes retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content)
+    })
+    @GetMapping("/changes")
+    ResponseEntity<ChangeFeedResponse<BookDto.Response>> changes(
+            @Parameter(description = "nextCursor from the previous response; omit to start from the first book")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum changes to return, at most 1000")
+            @RequestParam(defaultValue = "100") int size);
+
+    @Operation(
+        summary = "Stream book availability",
+        description = "Server-Sent Events stream of availability events, each with a book's current availableCopies and "
+                    + "totalCopies, pushed shortly after a borrow, return or edit changes them. Watches the given books, or "
+                    + "every book if none are given. Slow clients miss older events rather than newer ones; the stream "
+                    + "ends after a while and the client reconnects."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Stream opened",
+                content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = BookDto.Availability.class))),
+        @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content)
+    })
+    @GetMapping(value = "/availability", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter availability(
+            @Parameter(description = "Books to watch; omit to watch every book")
+            @RequestParam(required = false) List<Long> bookIds);
 
     @Operation(
         summary = "Get book by ID",
-        description = "Retrieve a specific book by its ID with availability information"
+        description = "Retrieve a specific book by its ID with availability information. "
+                    + "The response carries a strong ETag; a matching If-None-Match returns 304"
     )
     @ApiResponses({
-        @ApiResponse(responseCode = "200", description = "Book found"),
+        @ApiResponse(responseCode = "200", description = "Book found",
+                content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookDto.Response.class))),
+        @ApiResponse(responseCode = "304", description = "Book unchanged since the given ETag", content = @Content),
         @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content),
         @ApiResponse(responseCode = "404", description = "Book not found", content = @Content)
     })
     @GetMapping("/{id}")
-    ResponseEntity<BookDto.Response> findById(
+    ResponseEntity<byte[]> findById(
             @Parameter(description = "Book ID", example = "1")
             @PathVariable Long id);
 
@@ -67,18 +139,24 @@ public interface BookApi {
 
     @Operation(
         summary = "Update book (Admin only)",
-        description = "Update book information. Supports partial updates - only provided fields will be updated."
+        description = "Update book information. Supports partial updates - only provided fields will be updated. "
+            + "Send the ETag of GET /books/{id} as If-Match to only update a book nobody changed since, e.g. "
+            + "when setting available copies."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Book updated successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid input data", content = @Content),
         @ApiResponse(responseCode = "403", description = "Access denied - Admin role required", content = @Content),
-        @ApiResponse(responseCode = "404", description = "Book not found", content = @Content)
+        @ApiResponse(responseCode = "404", description = "Book not found", content = @Content),
+        @ApiResponse(responseCode = "409", description = "Book changed concurrently during an update without If-Match", content = @Content),
+        @ApiResponse(responseCode = "412", description = "Book changed since the If-Match ETag was read", content = @Content)
     })
     @PutMapping("/{id}")
     ResponseEntity<BookDto.Response> update(
             @Parameter(description = "Book ID", example = "1")
             @PathVariable Long id,
+            @Parameter(description = "ETag of the book as last read; omit to update unconditionally")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Updated book details (partial updates supported)", required = true)
             @RequestBody BookDto.Request request);
 
@@ -7,8 +7,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.demandlane.booklending.dto.LoanDto;
+import com.demandlane.booklending.dto.ChangeFeedResponse;
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
 import com.demandlane.booklending.dto.PageResponse;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -24,20 +28,66 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @RequestMapping("/api/v1/loans")
 public interface LoanApi {
 
+    String IDEMPOTENCY_KEY = "Idempotency-Key";
+    String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     @Operation(
         summary = "Get all loans (Admin only)",
         description = "Retrieve a paginated list of all loans with optional filtering by user or book"
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Loans retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
         @ApiResponse(responseCode = "403", description = "Access denied - Admin role required", content = @Content)
     })
     @GetMapping
     ResponseEntity<PageResponse<LoanDto.Response>> findAll(
             @ParameterObject
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @Parameter(description = "How to compute totalElements: EXACT runs a count query, NONE skips totals, ESTIMATED uses a cached count")
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             @Parameter(description = "Filter by userId or bookId")
-            LoanDto.Filter filter);
+            LoanDto.Filter filter,
+            WebRequest request);
+
+    @Operation(
+        summary = "Get all loans by cursor (Admin only)",
+        description = "Keyset-paginated list of loans without a total count. Sorts by the first sort property with id as tiebreaker; "
+                    + "pass nextCursor from the previous response to fetch the next page. The page parameter is ignored."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Loans retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "403", description = "Access denied - Admin role required", content = @Content)
+    })
+    @GetMapping("/cursor")
+    ResponseEntity<CursorPageResponse<LoanDto.Response>> findAllByCursor(
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @Parameter(description = "nextCursor from the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Filter by userId or bookId")
+            LoanDto.Filter filter,
+            WebRequest request);
+
+    @Operation(
+        summary = "Get loans changes (Admin only)",
+        description = "Change feed for keeping a local copy: loans created, updated or deleted after the cursor, oldest first. "
+                    + "Deleted loans come as tombstones. Store nextCursor, pass it as since on the next poll, and poll again at once "
+                    + "while hasMore is true. A change shows up once the transactions that started before it have finished."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Changes retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "403", description = "Access denied - Admin role required", content = @Content)
+    })
+    @GetMapping("/changes")
+    ResponseEntity<ChangeFeedResponse<LoanDto.Response>> changes(
+            @Parameter(description = "nextCursor from the previous response; omit to start from the first loan")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum changes to return, at most 1000")
+            @RequestParam(defaultValue = "100") int size);
 
     @Operation(
         summary = "Get my loans",
@@ -45,15 +95,41 @@ public interface LoanApi {
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Your loans retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
         @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content)
     })
     @GetMapping("/self")
     ResponseEntity<PageResponse<LoanDto.Response>> findAllOwned(
             @ParameterObject
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @Parameter(description = "How to compute totalElements: EXACT runs a count query, NONE skips totals, ESTIMATED uses a cached count")
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             @Parameter(hidden = true)
             LoanDto.Filter filter,
-            Principal principal);
+            Principal principal,
+            WebRequest request);
+
+    @Operation(
+        summary = "Get my loans by cursor",
+        description = "Keyset-paginated loan history of the current user without a total count. "
+                    + "Pass nextCursor from the previous response to fetch the next page. The page parameter is ignored."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Your loans retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content)
+    })
+    @GetMapping("/self/cursor")
+    ResponseEntity<CursorPageResponse<LoanDto.Response>> findAllOwnedByCursor(
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @Parameter(description = "nextCursor from the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(hidden = true)
+            LoanDto.Filter filter,
+            Principal principal,
+            WebRequest request);
 
     @Operation(
         summary = "Get loan by ID",
@@ -61,13 +137,15 @@ public interface LoanApi {
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Loan found"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
         @ApiResponse(responseCode = "403", description = "Access denied - not your loan", content = @Content),
         @ApiResponse(responseCode = "404", description = "Loan not found", content = @Content)
     })
     @GetMapping("/{id}")
     ResponseEntity<LoanDto.Response> findById(
             @Parameter(description = "Loan ID", example = "1")
-            @PathVariable Long id);
+            @PathVariable Long id,
+            WebRequest request);
 
     @Operation(
         summary = "Create loan manually (Admin only)",
@@ -123,11 +201,14 @@ public interface LoanApi {
             - Book availability
 
             Due date is automatically calculated (default: 14 days from now)
+
+            Send an Idempotency-Key header to make retries safe: a repeated request with the same key
+            returns the original loan (with Idempotent-Replayed: true) instead of borrowing again.
             """
     )
     @ApiResponses({
         @ApiResponse(responseCode = "201", description = "Book borrowed successfully"),
-        @ApiResponse(responseCode = "400", description = "Borrowing rule violated (max loans, overdue, unavailable)", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Borrowing rule violated (max loans, overdue, unavailable), or Idempotency-Key reused for another request", content = @Content),
         @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content),
         @ApiResponse(responseCode = "404", description = "Book not found", content = @Content)
     })
@@ -135,20 +216,26 @@ public interface LoanApi {
     ResponseEntity<LoanDto.Response> borrowBook(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Book to borrow (only bookId required)", required = true)
             @RequestBody LoanDto.BorrowRequest request,
+            @Parameter(description = "Client-generated key identifying this borrow across retries (max 255 characters)")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             Principal principal);
 
     @Operation(
         summary = "Return a book",
-        description = "Mark a borrowed book as returned. This increments the available copies count."
+        description = "Mark a borrowed book as returned. This increments the available copies count. "
+                    + "A repeated request with the same Idempotency-Key returns the original response instead of failing as already returned."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Book returned successfully"),
-        @ApiResponse(responseCode = "400", description = "Book already returned", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Book already returned, or Idempotency-Key reused for another request", content = @Content),
         @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content),
         @ApiResponse(responseCode = "404", description = "Loan not found", content = @Content)
     })
     @PutMapping("/return/{id}")
     ResponseEntity<LoanDto.Response> returnBook(
             @Parameter(description = "Loan ID to return", example = "1")
-            @PathVariable Long id);
+            @PathVariable Long id,
+            @Parameter(description = "Client-generated key identifying this return across retries (max 255 characters)")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            Principal principal);
 }
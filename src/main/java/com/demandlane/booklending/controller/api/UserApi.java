@@ -7,7 +7,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
 import com.demandlane.booklending.dto.PageResponse;
 import com.demandlane.booklending.dto.UserDto;
 
@@ -42,14 +45,39 @@ public interface UserApi {
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Users retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
         @ApiResponse(responseCode = "403", description = "Access denied - Admin role required", content = @Content)
     })
     @GetMapping
     ResponseEntity<PageResponse<UserDto.Response>> findAll(
             @ParameterObject
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
-            @Parameter(description = "Filter by name, email, or role")
-            UserDto.Filter filter);
+            @Parameter(description = "How to compute totalElements: EXACT runs a count query, NONE skips totals, ESTIMATED uses a cached count")
+            @RequestParam(defaultValue = "EXACT") CountMode count,
+            @Parameter(description = "Filter by name, email, or role; match selects CONTAINS (default), PREFIX or EXACT")
+            UserDto.Filter filter,
+            WebRequest request);
+
+    @Operation(
+        summary = "Get all users by cursor (Admin only)",
+        description = "Keyset-paginated list of users without a total count. Sorts by the first sort property with id as tiebreaker; "
+                    + "pass nextCursor from the previous response to fetch the next page. The page parameter is ignored."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Users retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "403", description = "Access denied - Admin role required", content = @Content)
+    })
+    @GetMapping("/cursor")
+    ResponseEntity<CursorPageResponse<UserDto.Response>> findAllByCursor(
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id") Pageable pageable,
+            @Parameter(description = "nextCursor from the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Filter by name, email, or role; match selects CONTAINS (default), PREFIX or EXACT")
+            UserDto.Filter filter,
+            WebRequest request);
 
     @Operation(
         summary = "Get user by ID (Admin only)",
@@ -57,13 +85,15 @@ public interface UserApi {
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "User found"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the given ETag or Last-Modified", content = @Content),
         @ApiResponse(responseCode = "403", description = "Access denied - Admin role required", content = @Content),
         @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
     })
     @GetMapping("/{id}")
     ResponseEntity<UserDto.Response> findById(
             @Parameter(description = "User ID", example = "1")
-            @PathVariable Long id);
+            @PathVariable Long id,
+            WebRequest request);
 
     @Operation(
         summary = "Create new user (Admin only)",
@@ -109,4 +139,19 @@ public interface UserApi {
     ResponseEntity<Void> delete(
             @Parameter(description = "User ID", example = "1")
             @PathVariable Long id);
+
+    @Operation(
+        summary = "Revoke user tokens (Admin only)",
+        description = "Revoke every JWT token issued to the user so far, signing them out everywhere. "
+                    + "Tokens from later logins are not affected."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "204", description = "Tokens revoked"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Admin role required", content = @Content),
+        @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    })
+    @PostMapping("/{id}/revoke-tokens")
+    ResponseEntity<Void> revokeTokens(
+            @Parameter(description = "User ID", example = "1")
+            @PathVariable Long id);
 }
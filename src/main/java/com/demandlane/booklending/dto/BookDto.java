@@ -41,6 +41,23 @@ public class BookDto {
         private String title;
         private String author;
         private String isbn;
+
+        /**
+         * How String fields are matched: CONTAINS (default), PREFIX or EXACT. Case-insensitive.
+         */
+        private String match;
+    }
+
+    /**
+     * A book's current copies, as pushed on the availability stream.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Availability {
+        private Long bookId;
+        private Long availableCopies;
+        private Long totalCopies;
     }
 
 }
@@ -0,0 +1,38 @@
+package com.demandlane.booklending.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Batch of a change feed: the rows changed since the request's cursor, as their current state.
+ * A client applies {@code upserts} and {@code tombstones} to its replica, stores {@code nextCursor}
+ * and polls again with it, at once while {@code hasMore} is true.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedResponse<T> {
+
+    private List<T> upserts;
+    private List<Tombstone> tombstones;
+    private boolean hasMore;
+
+    /**
+     * Position after this batch; the request's cursor if nothing changed.
+     */
+    private String nextCursor;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tombstone {
+        private Long id;
+        private LocalDateTime deletedAt;
+    }
+}
@@ -0,0 +1,16 @@
+package com.demandlane.booklending.dto;
+
+/**
+ * How a paged list endpoint computes {@code totalElements}.
+ * <ul>
+ *   <li>{@code EXACT} - runs a count query alongside the page query (default)</li>
+ *   <li>{@code NONE} - no count query; the response carries {@code last} but no totals</li>
+ *   <li>{@code ESTIMATED} - no count query on the request path; totals come from a cached
+ *       row count refreshed in the background, flagged by {@code totalExact}</li>
+ * </ul>
+ */
+public enum CountMode {
+    EXACT,
+    NONE,
+    ESTIMATED
+}
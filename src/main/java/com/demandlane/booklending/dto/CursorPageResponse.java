@@ -0,0 +1,24 @@
+package com.demandlane.booklending.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Page of a keyset (cursor) listing. Unlike {@link PageResponse} it carries no totals,
+ * so no count query is needed. Pass {@code nextCursor} back to fetch the following page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    private List<T> data;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
@@ -3,6 +3,7 @@ package com.demandlane.booklending.dto;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -18,8 +19,9 @@ public class PageResponse<T> {
     private List<T> data;
     private int page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
+    private boolean totalExact;
     private boolean first;
     private boolean last;
 
@@ -37,8 +39,60 @@ public class PageResponse<T> {
                 .size(page.getSize())
                 .totalElements(page.getTotalElements())
                 .totalPages(page.getTotalPages())
+                .totalExact(true)
                 .first(page.isFirst())
                 .last(page.isLast())
                 .build();
     }
+
+    /**
+     * Creates a PageResponse without totals from a Spring Data Slice.
+     *
+     * @param slice The Spring Data Slice object
+     * @param <T> The type of data in the slice
+     * @return A PageResponse whose totalElements and totalPages are null
+     */
+    public static <T> PageResponse<T> of(Slice<T> slice) {
+        return PageResponse.<T>builder()
+                .data(slice.getContent())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .first(slice.isFirst())
+                .last(slice.isLast())
+                .build();
+    }
+
+    /**
+     * Creates a PageResponse from a Spring Data Slice and an estimated total.
+     * The estimate is clamped to what the slice proves: at least the rows seen so far,
+     * and exactly that many when the slice is the last non-empty page.
+     *
+     * @param slice The Spring Data Slice object
+     * @param estimate The estimated total number of rows
+     * @param exact Whether the estimate is known to be exact
+     * @param <T> The type of data in the slice
+     * @return A PageResponse with estimated totals
+     */
+    public static <T> PageResponse<T> estimated(Slice<T> slice, long estimate, boolean exact) {
+        long offset = slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0;
+        long seen = offset + slice.getNumberOfElements();
+        long total = estimate;
+        if (slice.hasNext()) {
+            total = Math.max(estimate, seen + 1);
+        } else if (slice.hasContent() || offset == 0) {
+            total = seen;
+            exact = true;
+        }
+        int totalPages = slice.getSize() == 0 ? 1 : (int) Math.ceil((double) total / slice.getSize());
+        return PageResponse.<T>builder()
+                .data(slice.getContent())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .totalElements(total)
+                .totalPages(totalPages)
+                .totalExact(exact)
+                .first(slice.isFirst())
+                .last(slice.isLast())
+                .build();
+    }
 }
@@ -0,0 +1,35 @@
+package com.demandlane.booklending.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Validator of a set of rows: how many match, the sum of their optimistic lock versions and
+ * their latest {@code updatedAt}. Any insert, update or soft delete within the set changes it,
+ * so it answers conditional GETs without reading the rows themselves.
+ *
+ * @param count        Matching rows
+ * @param versions     Sum of the {@code version} of the rows and of any associations read with them
+ * @param lastModified Latest {@code updatedAt} among them, or null if nothing matches
+ */
+public record Revision(long count, long versions, LocalDateTime lastModified) {
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Quoted entity tag for this revision.
+     */
+    public String eTag() {
+        return "\"" + Long.toHexString(count) + "-" + Long.toHexString(versions) + "-"
+                + Long.toHexString(lastModifiedMillis()) + "\"";
+    }
+
+    /**
+     * {@code lastModified} in epoch milliseconds, or -1 if nothing matches.
+     */
+    public long lastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
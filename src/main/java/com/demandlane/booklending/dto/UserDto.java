@@ -49,5 +49,10 @@ public class UserDto {
         private String name;
         private String email;
         private String role;
+
+        /**
+         * How String fields are matched: CONTAINS (default), PREFIX or EXACT. Case-insensitive.
+         */
+        private String match;
     }
 }
@@ -12,6 +12,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -40,6 +41,14 @@ public abstract class BaseEntity {
     @Column
     private LocalDateTime deletedAt;
 
+    /**
+     * Optimistic lock version. Guarded bulk updates that touch a row bump it as well,
+     * so a stale read-modify-write of the same row fails instead of overwriting them.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public boolean isDeleted() {
         return deletedAt != null;
     }
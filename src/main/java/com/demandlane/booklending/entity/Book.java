@@ -1,5 +1,11 @@
 package com.demandlane.booklending.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.demandlane.booklending.config.SecondLevelCacheConfig;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
@@ -11,6 +17,8 @@ import lombok.experimental.SuperBuilder;
 
 @Entity
 @Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.BOOKS_REGION)
 @SuperBuilder
 @Data
 @NoArgsConstructor
@@ -24,5 +32,21 @@ public class Book extends BaseEntity {
     private String isbn;
 
     private Long totalCopies;
+    /**
+     * Available copies. For sharded books this is an aggregate of the slot rows, refreshed periodically.
+     */
     private Long availableCopies;
+
+    /**
+     * Number of {@link BookInventorySlot} rows the available copies are split across, or 0 when they
+     * are kept on this row.
+     */
+    @Column(nullable = false)
+    private int inventorySlots;
+
+    /**
+     * Id of the transaction that last wrote this row, stamped by the database. Change feeds walk it.
+     */
+    @Column(insertable = false, updatable = false)
+    private Long changeXid;
 }
@@ -0,0 +1,50 @@
+package com.demandlane.booklending.entity;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One share of a sharded book's available copies. Books with {@link Book#getInventorySlots()} above
+ * zero keep their copies in that many slot rows, so concurrent borrows of the same title update
+ * different rows instead of queuing on the {@code books} row.
+ * <p>
+ * Borrows and returns only write slots through the guarded statements in
+ * {@link com.demandlane.booklending.repository.BookInventorySlotRepository}.
+ */
+@Entity
+@Table(name = "book_inventory_slots")
+@IdClass(BookInventorySlot.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookInventorySlot {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Id
+    @Column(name = "slot")
+    private int slot;
+
+    @Column(nullable = false)
+    private long availableCopies;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long bookId;
+        private int slot;
+    }
+}
@@ -39,4 +39,10 @@ public class Loan extends BaseEntity {
 
     @Column
     private LocalDateTime returnedAt;
+
+    /**
+     * Id of the transaction that last wrote this row, stamped by the database. Change feeds walk it.
+     */
+    @Column(insertable = false, updatable = false)
+    private Long changeXid;
 }
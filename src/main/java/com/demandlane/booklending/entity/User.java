@@ -1,5 +1,10 @@
 package com.demandlane.booklending.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.demandlane.booklending.config.SecondLevelCacheConfig;
+
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,6 +14,8 @@ import lombok.experimental.SuperBuilder;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USERS_REGION)
 @SuperBuilder
 @Data
 @NoArgsConstructor
@@ -0,0 +1,47 @@
+package com.demandlane.booklending.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-user summary of open loans, kept in step with {@code loans} so the borrowing rules can be
+ * checked with a single primary-key read instead of aggregating the user's loan history.
+ * <p>
+ * Rows are created lazily on a user's first borrow and are only written through the guarded
+ * statements in {@link com.demandlane.booklending.repository.UserLoanSummaryRepository}.
+ */
+@Entity
+@Table(name = "user_loan_summaries")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserLoanSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * Number of loans that are neither returned nor deleted.
+     */
+    @Column(nullable = false)
+    private long activeLoans;
+
+    /**
+     * Earliest due date among the open loans, or null when there are none.
+     */
+    @Column
+    private LocalDateTime earliestDueDate;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
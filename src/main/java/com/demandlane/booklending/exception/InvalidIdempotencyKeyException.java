@@ -0,0 +1,11 @@
+package com.demandlane.booklending.exception;
+
+/**
+ * Exception thrown when an Idempotency-Key is malformed or was already used for a different request.
+ */
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+}
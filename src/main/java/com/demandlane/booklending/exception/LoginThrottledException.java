@@ -0,0 +1,19 @@
+package com.demandlane.booklending.exception;
+
+/**
+ * Exception thrown when a login is refused because its email or client address is locked out after
+ * too many failed attempts.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
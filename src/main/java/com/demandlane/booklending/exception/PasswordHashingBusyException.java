@@ -0,0 +1,11 @@
+package com.demandlane.booklending.exception;
+
+/**
+ * Exception thrown when the password hashing queue is full and a login or registration cannot be served now.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
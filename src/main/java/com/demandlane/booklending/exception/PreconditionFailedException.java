@@ -0,0 +1,12 @@
+package com.demandlane.booklending.exception;
+
+/**
+ * Exception thrown when a conditional write's {@code If-Match} no longer matches the resource,
+ * i.e. it was changed since the client read it.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.demandlane.booklending.exception;
+
+/**
+ * Exception thrown when a request waited too long for one of the database-bound request permits.
+ */
+public class RequestQueueTimeoutException extends RuntimeException {
+
+    public RequestQueueTimeoutException(String message) {
+        super(message);
+    }
+}
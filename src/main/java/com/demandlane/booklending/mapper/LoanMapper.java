@@ -28,6 +28,7 @@ public interface LoanMapper extends BaseMapper<Loan, LoanDto.Request, LoanDto.Re
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Loan toEntity(LoanDto.Request request);
 
     @Mapping(target = "id", ignore = true)
@@ -36,6 +37,7 @@ public interface LoanMapper extends BaseMapper<Loan, LoanDto.Request, LoanDto.Re
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     void updateEntity(@MappingTarget Loan target, LoanDto.Request request);
 }
@@ -20,6 +20,7 @@ public interface UserMapper extends BaseMapper<User, UserDto.Request, UserDto.Re
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "role", expression = "java(com.demandlane.booklending.entity.Role.MEMBER)")
     User toEntity(UserDto.Request request);
 
@@ -27,6 +28,7 @@ public interface UserMapper extends BaseMapper<User, UserDto.Request, UserDto.Re
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "role", ignore = true)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     void updateEntity(@MappingTarget User target, UserDto.Request request);
@@ -0,0 +1,46 @@
+package com.demandlane.booklending.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.demandlane.booklending.entity.BookInventorySlot;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface BookInventorySlotRepository extends JpaRepository<BookInventorySlot, BookInventorySlot.Key> {
+
+    /**
+     * Claims one copy from a single slot of an active book, in one guarded statement.
+     *
+     * @return 1 if the copy was claimed, 0 if the slot is empty, missing or the book is inactive
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookInventorySlot s SET s.availableCopies = s.availableCopies - 1 " +
+           "WHERE s.bookId = :bookId AND s.slot = :slot AND s.availableCopies > 0 " +
+           "AND EXISTS (SELECT b.id FROM Book b WHERE b.id = :bookId AND b.deletedAt IS NULL)")
+    int claimCopy(@Param("bookId") Long bookId, @Param("slot") int slot);
+
+    /**
+     * Puts one copy back into a slot.
+     *
+     * @return 1 if the copy was released, 0 if the slot does not exist
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookInventorySlot s SET s.availableCopies = s.availableCopies + 1 " +
+           "WHERE s.bookId = :bookId AND s.slot = :slot")
+    int releaseCopy(@Param("bookId") Long bookId, @Param("slot") int slot);
+
+    /**
+     * Locks all slots of a book, in slot order, so they can be rebalanced without a borrow in between.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BookInventorySlot s WHERE s.bookId = :bookId ORDER BY s.slot")
+    List<BookInventorySlot> lockAllByBookId(@Param("bookId") Long bookId);
+}
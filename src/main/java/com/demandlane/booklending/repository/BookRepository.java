@@ -1,10 +1,97 @@
 package com.demandlane.booklending.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.demandlane.booklending.entity.Book;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface BookRepository extends BaseRepository<Book>{
-    
+
+    /**
+     * Looks the book up by primary key, so it is served from the second-level cache when present.
+     */
+    @Override
+    default Optional<Book> findActiveById(Long id) {
+        return findById(id).filter(book -> !book.isDeleted());
+    }
+
+    /**
+     * Query space the native inventory statements below declare instead of {@code books}. No entity
+     * maps to it, so Hibernate does not drop the whole book region after each of them; callers lock
+     * just the changed books with {@code SecondLevelCacheLocks}. Queries on books must therefore not
+     * go through the query cache.
+     */
+    String INVENTORY_QUERY_SPACE = "books_inventory";
+
+    /**
+     * Claims one copy of an active book in a single guarded statement, so concurrent borrows can
+     * never drive {@code availableCopies} below zero. The borrower's rules are checked separately
+     * when their loan slot is claimed. Sharded books are never matched; their copies are claimed
+     * from {@link BookInventorySlotRepository}.
+     *
+     * @return 1 if the copy was claimed, 0 if the book is inactive, sharded or has no copy left
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = INVENTORY_QUERY_SPACE))
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE books SET available_copies = available_copies - 1, updated_at = :now, " +
+                   "version = version + 1 " +
+                   "WHERE id = :bookId AND deleted_at IS NULL AND available_copies > 0 AND inventory_slots = 0",
+           nativeQuery = true)
+    int claimCopy(@Param("bookId") Long bookId, @Param("now") LocalDateTime now);
+
+    /**
+     * Puts one copy of a book back on the shelf without a read-modify-write.
+     *
+     * @return 1 if the copy was released, 0 if the book is sharded or does not exist
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = INVENTORY_QUERY_SPACE))
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE books SET available_copies = available_copies + 1, updated_at = :now, " +
+                   "version = version + 1 " +
+                   "WHERE id = :bookId AND inventory_slots = 0",
+           nativeQuery = true)
+    int releaseCopy(@Param("bookId") Long bookId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.inventorySlots FROM Book b WHERE b.id = :bookId")
+    Optional<Integer> findInventorySlots(@Param("bookId") Long bookId);
+
+    /**
+     * Recomputes {@code availableCopies} of sharded books from their slots. Only rows whose
+     * aggregate changed are written; the version is left alone, as this is not an edit of the book,
+     * but {@code updatedAt} moves so change feeds pick the new count up.
+     *
+     * @return the number of books whose aggregate changed
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = INVENTORY_QUERY_SPACE))
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE books SET available_copies = " +
+                   "(SELECT COALESCE(SUM(s.available_copies), 0) FROM book_inventory_slots s WHERE s.book_id = books.id), " +
+                   "updated_at = :now " +
+                   "WHERE inventory_slots > 0 AND deleted_at IS NULL AND available_copies <> " +
+                   "(SELECT COALESCE(SUM(s.available_copies), 0) FROM book_inventory_slots s WHERE s.book_id = books.id)",
+           nativeQuery = true)
+    int refreshShardedAvailability(@Param("now") LocalDateTime now);
+
+    /**
+     * Whether any active book keeps its copies in slots.
+     */
+    boolean existsByInventorySlotsGreaterThanAndDeletedAtIsNull(int inventorySlots);
+
+    /**
+     * Ids of the sharded books stamped with exactly this time, i.e. those a
+     * {@link #refreshShardedAvailability} run with the same {@code now} changed.
+     */
+    @Query("SELECT b.id FROM Book b WHERE b.inventorySlots > 0 AND b.updatedAt = :now")
+    List<Long> findShardedIdsUpdatedAt(@Param("now") LocalDateTime now);
 }
@@ -0,0 +1,27 @@
+package com.demandlane.booklending.repository;
+
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reads how far change feeds may list rows. Every write stamps its row's {@code change_xid} with the
+ * id of its transaction; on PostgreSQL the horizon is the xmin of the current snapshot, so every
+ * transaction below it has finished and every one still to commit will be stamped at or above it.
+ * Rows are thus listed in an order no later commit can slip in front of.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChangeFeedHorizon {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Lowest transaction id that may still commit. Rows stamped below it are safe to list.
+     */
+    public long current() {
+        return ((Number) entityManager.createNativeQuery("SELECT horizon FROM change_feed_horizon")
+                .getSingleResult()).longValue();
+    }
+}
@@ -1,13 +1,37 @@
 package com.demandlane.booklending.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.demandlane.booklending.entity.Loan;
 
 public interface LoanRepository extends BaseRepository<Loan> {
+
+    /**
+     * Associations read by {@code LoanMapper.toResponse}. Listing and lookup queries fetch them
+     * in the same select, so mapping a page never triggers per-row lazy loads.
+     * Keep in sync with the {@code @EntityGraph} attribute paths below.
+     */
+    List<String> RESPONSE_GRAPH = List.of("user", "book");
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "book"})
+    Page<Loan> findAll(Specification<Loan> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT e FROM Loan e WHERE e.id = ?1 AND e.deletedAt IS NULL")
+    Optional<Loan> findActiveById(Long id);
+
     @Query("SELECT COUNT(l) FROM Loan l WHERE l.user.id = :userId " +
            "AND l.returnedAt IS NULL AND l.deletedAt IS NULL")
     long countActiveLoans(@Param("userId") Long userId);
@@ -15,4 +39,18 @@ public interface LoanRepository extends BaseRepository<Loan> {
     @Query("SELECT COUNT(l) > 0 FROM Loan l WHERE l.user.id = :userId " +
            "AND l.returnedAt IS NULL AND l.dueDate < :now AND l.deletedAt IS NULL")
     boolean hasOverdueLoans(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Open loan count and earliest due date per user, for the users in the batch that have open loans.
+     */
+    @Query("SELECT l.user.id AS userId, COUNT(l) AS activeLoans, MIN(l.dueDate) AS earliestDueDate " +
+           "FROM Loan l WHERE l.user.id IN :userIds AND l.returnedAt IS NULL AND l.deletedAt IS NULL " +
+           "GROUP BY l.user.id")
+    List<OpenLoans> summarizeOpenLoans(@Param("userIds") Collection<Long> userIds);
+
+    interface OpenLoans {
+        Long getUserId();
+        long getActiveLoans();
+        LocalDateTime getEarliestDueDate();
+    }
 }
@@ -0,0 +1,82 @@
+package com.demandlane.booklending.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import com.demandlane.booklending.dto.Revision;
+import com.demandlane.booklending.entity.BaseEntity;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reads the {@link Revision} of the rows matching a specification with a single aggregate query,
+ * {@code SELECT COUNT(*), MAX(updated_at), SUM(version) ...}, which costs about as much as the
+ * count query of a paged listing and transfers one row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RevisionQuery {
+
+    private static final String UPDATED_AT = "updatedAt";
+    private static final String VERSION = "version";
+
+    private final EntityManager entityManager;
+
+    /**
+     * @param type         The entity to query
+     * @param spec         The rows to cover, e.g. from {@code SpecificationBuilder.fromFilter}
+     * @param associations Associations whose fields appear in the response, e.g. a loan's user and
+     *                     book; their versions and update times are part of the revision
+     */
+    public <T extends BaseEntity> Revision of(Class<T> type, Specification<T> spec, List<String> associations) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+
+        List<From<?, ?>> sources = new ArrayList<>();
+        sources.add(root);
+        associations.forEach(association -> sources.add(root.join(association)));
+
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(cb.count(root));
+        for (From<?, ?> source : sources) {
+            selections.add(cb.greatest(source.<LocalDateTime>get(UPDATED_AT)));
+            selections.add(cb.sum(source.<Long>get(VERSION)));
+        }
+        query.multiselect(selections);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        Tuple result = entityManager.createQuery(query).getSingleResult();
+        LocalDateTime lastModified = null;
+        long versions = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            LocalDateTime updatedAt = result.get(1 + 2 * i, LocalDateTime.class);
+            Long versionSum = result.get(2 + 2 * i, Long.class);
+            if (updatedAt != null && (lastModified == null || updatedAt.isAfter(lastModified))) {
+                lastModified = updatedAt;
+            }
+            versions += versionSum == null ? 0 : versionSum;
+        }
+        return new Revision(result.get(0, Long.class), versions, lastModified);
+    }
+
+    public <T extends BaseEntity> Revision of(Class<T> type, Specification<T> spec) {
+        return of(type, spec, List.of());
+    }
+}
@@ -0,0 +1,83 @@
+package com.demandlane.booklending.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.demandlane.booklending.entity.UserLoanSummary;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface UserLoanSummaryRepository extends JpaRepository<UserLoanSummary, Long> {
+
+    /**
+     * Claims one loan slot for an active user in a single guarded statement. The row is only
+     * incremented when the user is below the active loan limit and has no overdue loans; the row
+     * lock serializes concurrent borrows by the same user.
+     *
+     * @return 1 if the slot was claimed, 0 if a rule rejected it or the user has no summary yet
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserLoanSummary s SET s.activeLoans = s.activeLoans + 1, " +
+           "s.earliestDueDate = CASE WHEN s.earliestDueDate IS NULL OR s.earliestDueDate > :dueDate " +
+           "THEN :dueDate ELSE s.earliestDueDate END, s.updatedAt = :now " +
+           "WHERE s.userId = :userId AND s.activeLoans < :maxActiveLoans " +
+           "AND (s.earliestDueDate IS NULL OR s.earliestDueDate >= :now) " +
+           "AND EXISTS (SELECT u.id FROM User u WHERE u.id = :userId AND u.deletedAt IS NULL)")
+    int claimSlot(@Param("userId") Long userId,
+                  @Param("maxActiveLoans") long maxActiveLoans,
+                  @Param("dueDate") LocalDateTime dueDate,
+                  @Param("now") LocalDateTime now);
+
+    /**
+     * Recomputes a user's summary from their open loans. Only open loans are read, through the
+     * partial (user_id, due_date) index, so the cost does not grow with the loan history.
+     *
+     * @return 1 if the summary was updated, 0 if the user has no summary yet
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserLoanSummary s SET " +
+           "s.activeLoans = (SELECT COUNT(l) FROM Loan l WHERE l.user.id = :userId " +
+           "AND l.returnedAt IS NULL AND l.deletedAt IS NULL), " +
+           "s.earliestDueDate = (SELECT MIN(l.dueDate) FROM Loan l WHERE l.user.id = :userId " +
+           "AND l.returnedAt IS NULL AND l.deletedAt IS NULL), " +
+           "s.updatedAt = :now WHERE s.userId = :userId")
+    int refresh(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Creates a user's summary from their open loans if it does not exist yet.
+     * Concurrent initializations are harmless: the losing insert is skipped.
+     *
+     * @return 1 if the summary was created, 0 if it already existed or the user does not exist
+     */
+    // Declares the only table written, or Hibernate would drop every second-level cache region
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_loan_summaries"))
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO user_loan_summaries (user_id, active_loans, earliest_due_date, updated_at) " +
+                   "SELECT u.id, " +
+                   "(SELECT COUNT(*) FROM loans l WHERE l.user_id = u.id AND l.returned_at IS NULL AND l.deleted_at IS NULL), " +
+                   "(SELECT MIN(l.due_date) FROM loans l WHERE l.user_id = u.id AND l.returned_at IS NULL AND l.deleted_at IS NULL), " +
+                   ":now FROM users u WHERE u.id = :userId " +
+                   "ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int initialize(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Locks the summaries of a batch of users so the reconciliation can compare them against
+     * {@code loans} without a concurrent borrow slipping in between.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserLoanSummary s WHERE s.userId IN :userIds")
+    List<UserLoanSummary> lockAllByUserIdIn(@Param("userIds") Collection<Long> userIds);
+}
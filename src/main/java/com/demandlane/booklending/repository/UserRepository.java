@@ -1,15 +1,38 @@
 package com.demandlane.booklending.repository;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.demandlane.booklending.entity.User;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface UserRepository extends BaseRepository<User> {
 
+    /**
+     * Looks the user up by primary key, so it is served from the second-level cache when present.
+     */
+    @Override
+    default Optional<User> findActiveById(Long id) {
+        return findById(id).filter(user -> !user.isDeleted());
+    }
+
+    // Cached until the next write to users, which invalidates every cached users query
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT u FROM User u WHERE u.email = ?1 AND u.deletedAt IS NULL")
     Optional<User> findActiveByEmail(String email);
+
+    @Query("SELECT u.id FROM User u WHERE u.deletedAt > ?1")
+    List<Long> findDeletedIdsSince(LocalDateTime since);
+
+    @Query("SELECT u.id FROM User u WHERE u.id > ?1 ORDER BY u.id")
+    List<Long> findIdsAfter(Long afterId, Limit limit);
 }
@@ -0,0 +1,75 @@
+package com.demandlane.booklending.security;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.demandlane.booklending.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory set of recently soft-deleted user ids, used to reject tokens of deleted users
+ * without fetching the user row on every request.
+ * <p>
+ * Loaded at startup, updated by {@code UserService.delete} and periodically refreshed
+ * from the database to pick up deletions made by other instances. Only users deleted within
+ * one token lifetime are loaded, and each id is forgotten one token lifetime after it was
+ * added: every token issued before the deletion has expired by then, and a deleted user
+ * cannot log in for a new one.
+ */
+@Component
+public class DeletedUserRegistry {
+
+    private final UserRepository userRepository;
+    private final long tokenLifetimeMillis;
+    private final LongSupplier clock;
+    private final Cache<Long, Boolean> deletedUserIds;
+
+    @Autowired
+    public DeletedUserRegistry(UserRepository userRepository,
+                               @Value("${jwt.expiration:86400000}") long tokenLifetimeMillis) {
+        this(userRepository, tokenLifetimeMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Wall-clock time in epoch milliseconds, comparable with {@code deletedAt}
+     */
+    DeletedUserRegistry(UserRepository userRepository, long tokenLifetimeMillis, LongSupplier clock) {
+        this.userRepository = userRepository;
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+        this.clock = clock;
+        this.deletedUserIds = Caffeine.newBuilder()
+                .expireAfterWrite(tokenLifetimeMillis, TimeUnit.MILLISECONDS)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()))
+                .build();
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.deleted-users.refresh-interval:60000}",
+               initialDelayString = "${jwt.deleted-users.refresh-interval:60000}")
+    public void refresh() {
+        LocalDateTime since = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(clock.getAsLong() - tokenLifetimeMillis), ZoneId.systemDefault());
+        // Ids already known keep their expiry, so a refresh never extends it
+        userRepository.findDeletedIdsSince(since)
+                .forEach(userId -> deletedUserIds.asMap().putIfAbsent(userId, Boolean.TRUE));
+    }
+
+    public void markDeleted(Long userId) {
+        deletedUserIds.put(userId, Boolean.TRUE);
+    }
+
+    public boolean isDeleted(Long userId) {
+        return deletedUserIds.getIfPresent(userId) != null;
+    }
+}
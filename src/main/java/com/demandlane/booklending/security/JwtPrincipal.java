@@ -0,0 +1,50 @@
+package com.demandlane.booklending.security;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Immutable identity extracted from a verified JWT.
+ * Used as the authentication principal, so {@link #getName()} keeps returning the email
+ * for code that reads {@code Principal.getName()}.
+ * <p>
+ * {@code userId} is null for tokens issued before the id was embedded, and {@code tokenId}
+ * ({@code jti}) for tokens issued before it was.
+ */
+public record JwtPrincipal(Long userId, String email, String role, String tokenId, Instant issuedAt, Instant expiresAt)
+        implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    /**
+     * Returns the user id carried by the token behind an authenticated request, if any.
+     * Callers fall back to resolving the user by {@code principal.getName()} when empty.
+     */
+    public static Optional<Long> userIdOf(Principal principal) {
+        return of(principal).map(JwtPrincipal::userId);
+    }
+
+    /**
+     * Returns the verified token behind an authenticated request, if it was authenticated by JWT.
+     */
+    public static Optional<JwtPrincipal> of(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof JwtPrincipal jwtPrincipal) {
+            return Optional.of(jwtPrincipal);
+        }
+        return Optional.empty();
+    }
+}
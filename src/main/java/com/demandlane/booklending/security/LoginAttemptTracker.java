@@ -0,0 +1,206 @@
+package com.demandlane.booklending.security;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.demandlane.booklending.exception.LoginThrottledException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Sliding-window tracker of failed logins per email and per client address, consulted before a login
+ * does any database or BCrypt work.
+ * <p>
+ * Each email and address keeps the times of its last failures. Once an email has failed
+ * {@code login-throttle.max-failures-per-email} times within {@code login-throttle.window}
+ * milliseconds, or an address {@code login-throttle.max-failures-per-ip} times, it is locked out for
+ * {@code login-throttle.lockout} milliseconds and its logins are refused with
+ * {@link LoginThrottledException} (429). A successful login clears its email's failures, but not its
+ * address's. A {@code login-throttle.max-failures-per-ip} of 0 turns address tracking off, for
+ * deployments where the client address cannot be told apart from the proxy's.
+ * <p>
+ * Tracked keys are held in a bounded cache of {@code login-throttle.max-tracked-keys} entries, each
+ * dropped once its failures and lockout are over. Refusals and lockouts are counted in
+ * {@code security.login-throttle.rejections} and {@code security.login-throttle.lockouts}, tagged
+ * with {@code key=email|ip}; cache usage is published as {@code cache.*} metrics with
+ * {@code cache=security.login-attempts}.
+ */
+@Component
+public class LoginAttemptTracker {
+
+    private static final String CACHE_NAME = "security.login-attempts";
+
+    private final Cache<String, Window> windows;
+    private final int maxFailuresPerEmail;
+    private final int maxFailuresPerIp;
+    private final long windowNanos;
+    private final long lockoutNanos;
+    private final LongSupplier nanoClock;
+    private final Counter emailRejections;
+    private final Counter ipRejections;
+    private final Counter emailLockouts;
+    private final Counter ipLockouts;
+
+    @Autowired
+    public LoginAttemptTracker(MeterRegistry meterRegistry,
+                               @Value("${login-throttle.max-failures-per-email:5}") int maxFailuresPerEmail,
+                               @Value("${login-throttle.max-failures-per-ip:50}") int maxFailuresPerIp,
+                               @Value("${login-throttle.window:60000}") long windowMillis,
+                               @Value("${login-throttle.lockout:300000}") long lockoutMillis,
+                               @Value("${login-throttle.max-tracked-keys:100000}") long maxTrackedKeys) {
+        this(meterRegistry, maxFailuresPerEmail, maxFailuresPerIp, windowMillis, lockoutMillis, maxTrackedKeys,
+             System::nanoTime);
+    }
+
+    LoginAttemptTracker(MeterRegistry meterRegistry, int maxFailuresPerEmail, int maxFailuresPerIp,
+                        long windowMillis, long lockoutMillis, long maxTrackedKeys, LongSupplier nanoClock) {
+        this.maxFailuresPerEmail = Math.max(1, maxFailuresPerEmail);
+        this.maxFailuresPerIp = Math.max(0, maxFailuresPerIp);
+        this.windowNanos = Duration.ofMillis(windowMillis).toNanos();
+        this.lockoutNanos = Duration.ofMillis(lockoutMillis).toNanos();
+        this.nanoClock = nanoClock;
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterWrite(Duration.ofNanos(Math.max(windowNanos, lockoutNanos)))
+                .ticker(nanoClock::getAsLong)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, windows, CACHE_NAME);
+        this.emailRejections = counter(meterRegistry, "security.login-throttle.rejections", "Logins refused during a lockout", "email");
+        this.ipRejections = counter(meterRegistry, "security.login-throttle.rejections", "Logins refused during a lockout", "ip");
+        this.emailLockouts = counter(meterRegistry, "security.login-throttle.lockouts", "Lockouts after too many failed logins", "email");
+        this.ipLockouts = counter(meterRegistry, "security.login-throttle.lockouts", "Lockouts after too many failed logins", "ip");
+    }
+
+    /**
+     * Refuses the login if its email or client address is locked out.
+     *
+     * @throws LoginThrottledException if either is locked out
+     */
+    public void checkAllowed(String email, String clientIp) {
+        long now = nanoClock.getAsLong();
+        long emailWait = remainingLockout(emailKey(email), now);
+        if (emailWait > 0) {
+            emailRejections.increment();
+            throw throttled(emailWait);
+        }
+        long ipWait = remainingLockout(ipKey(clientIp), now);
+        if (ipWait > 0) {
+            ipRejections.increment();
+            throw throttled(ipWait);
+        }
+    }
+
+    public void recordFailure(String email, String clientIp) {
+        long now = nanoClock.getAsLong();
+        String emailKey = emailKey(email);
+        if (emailKey != null && fail(emailKey, maxFailuresPerEmail, now)) {
+            emailLockouts.increment();
+        }
+        String ipKey = ipKey(clientIp);
+        if (ipKey != null && fail(ipKey, maxFailuresPerIp, now)) {
+            ipLockouts.increment();
+        }
+    }
+
+    public void recordSuccess(String email) {
+        String emailKey = emailKey(email);
+        if (emailKey != null) {
+            windows.invalidate(emailKey);
+        }
+    }
+
+    public void invalidateAll() {
+        windows.invalidateAll();
+    }
+
+    /**
+     * Records a failure of one key. Going through compute rewrites the entry, so it stays cached for
+     * a full window or lockout after its latest failure.
+     *
+     * @return true if this failure locked the key out
+     */
+    private boolean fail(String key, int maxFailures, long now) {
+        boolean[] lockedOut = new boolean[1];
+        windows.asMap().compute(key, (k, window) -> {
+            Window current = window == null ? new Window(maxFailures) : window;
+            lockedOut[0] = current.fail(now, windowNanos, lockoutNanos);
+            return current;
+        });
+        return lockedOut[0];
+    }
+
+    private long remainingLockout(String key, long now) {
+        if (key == null) {
+            return 0;
+        }
+        Window window = windows.getIfPresent(key);
+        return window == null ? 0 : window.remainingLockout(now);
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? null : "email:" + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private String ipKey(String clientIp) {
+        return clientIp == null || maxFailuresPerIp == 0 ? null : "ip:" + clientIp;
+    }
+
+    private static LoginThrottledException throttled(long waitNanos) {
+        long seconds = Math.max(1, Duration.ofNanos(waitNanos).toSeconds());
+        return new LoginThrottledException("Too many failed login attempts, please retry in " + seconds + " seconds", seconds);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String description, String key) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Times of the last failures of one key, in a ring as long as the failure limit.
+     */
+    private static final class Window {
+        private final long[] failures;
+        private int next;
+        private int count;
+        private long lockedUntil;
+        private boolean locked;
+
+        Window(int maxFailures) {
+            this.failures = new long[maxFailures];
+        }
+
+        /**
+         * Records a failure.
+         *
+         * @return true if this failure started a lockout
+         */
+        synchronized boolean fail(long now, long windowNanos, long lockoutNanos) {
+            failures[next] = now;
+            next = (next + 1) % failures.length;
+            count = Math.min(count + 1, failures.length);
+            // With a full ring, the slot to be overwritten next holds the oldest of the last failures
+            if (count == failures.length && now - failures[next] <= windowNanos && remainingLockout(now) == 0) {
+                lockedUntil = now + lockoutNanos;
+                locked = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized long remainingLockout(long now) {
+            return locked ? Math.max(0, lockedUntil - now) : 0;
+        }
+    }
+}
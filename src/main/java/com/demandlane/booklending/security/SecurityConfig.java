@@ -1,6 +1,8 @@
 package com.demandlane.booklending.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -24,7 +26,11 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // The dispatch that ends an SSE stream carries no token; the request was authorized when it opened
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public endpoints
+                        .requestMatchers(HttpMethod.POST, "/api/v1/auth/logout").authenticated()
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
@@ -38,7 +44,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/books/**").hasRole("ADMIN")
                         
                         // Loan endpoints
-                        .requestMatchers(HttpMethod.GET, "/api/v1/loans/self").hasAnyRole("ADMIN", "MEMBER")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/loans/self", "/api/v1/loans/self/cursor").hasAnyRole("ADMIN", "MEMBER")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/loans/cursor", "/api/v1/loans/changes").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/v1/loans/*").hasAnyRole("ADMIN", "MEMBER")
                         .requestMatchers(HttpMethod.POST, "/api/v1/loans/borrow").hasAnyRole("ADMIN", "MEMBER")
                         .requestMatchers(HttpMethod.PUT, "/api/v1/loans/return/**").hasAnyRole("ADMIN", "MEMBER")
@@ -55,7 +62,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${password-hashing.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
@@ -0,0 +1,177 @@
+package com.demandlane.booklending.security;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Revoked JWTs, checked on every authenticated request.
+ * <p>
+ * Single tokens are revoked by {@code jti} until their own {@code exp}. All of a user's tokens are
+ * revoked by recording the second of revocation; tokens issued at or before it are rejected, and
+ * the record is kept for one token lifetime, after which every such token has expired anyway.
+ * <p>
+ * Both exact sets sit behind one Bloom filter, so a token that was never revoked is cleared by a
+ * few bit reads without touching either set. Only a filter hit consults the exact sets; hits that
+ * turn out not to be revoked are counted in {@code security.token-revocation.false-positives}.
+ * The filter cannot forget entries, so it is rebuilt from the live entries on a schedule.
+ * <p>
+ * Revocations are held per instance and are lost on restart. Deleted users are also rejected
+ * through {@link DeletedUserRegistry}, which is backed by the database.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private final LongSupplier clock;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+    private final Cache<String, Instant> revokedTokens;
+    private final Cache<Long, Instant> revokedUsers;
+    private final Counter falsePositives;
+    private final Object writeLock = new Object();
+    private volatile BloomFilter filter;
+
+    @Autowired
+    public TokenRevocationStore(MeterRegistry meterRegistry,
+                                @Value("${jwt.expiration:86400000}") long tokenLifetimeMillis,
+                                @Value("${jwt.revocation.expected-entries:100000}") long expectedEntries,
+                                @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this(meterRegistry, tokenLifetimeMillis, expectedEntries, falsePositiveRate, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Wall-clock time in epoch milliseconds, comparable with token {@code exp}
+     */
+    TokenRevocationStore(MeterRegistry meterRegistry, long tokenLifetimeMillis, long expectedEntries,
+                         double falsePositiveRate, LongSupplier clock) {
+        this.clock = clock;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.revokedTokens = Caffeine.newBuilder()
+                .expireAfter(new UntilTokenExpiry(clock))
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()))
+                .build();
+        this.revokedUsers = Caffeine.newBuilder()
+                .expireAfterWrite(tokenLifetimeMillis, TimeUnit.MILLISECONDS)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()))
+                .build();
+        this.falsePositives = Counter.builder("security.token-revocation.false-positives")
+                .description("Bloom filter hits for tokens that were not revoked")
+                .register(meterRegistry);
+        this.filter = BloomFilter.create(expectedEntries, falsePositiveRate);
+    }
+
+    /**
+     * Revokes the token behind {@code principal}. Tokens without a {@code jti} cannot be told apart,
+     * so every token of their user is revoked instead.
+     */
+    public void revoke(JwtPrincipal principal) {
+        if (principal.tokenId() != null) {
+            revokeToken(principal.tokenId(), principal.expiresAt());
+        } else if (principal.userId() != null) {
+            revokeAllForUser(principal.userId());
+        }
+    }
+
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.ofEpochMilli(clock.getAsLong()))) {
+            return;
+        }
+        synchronized (writeLock) {
+            revokedTokens.put(tokenId, expiresAt);
+            filter.put(tokenHash(tokenId));
+        }
+    }
+
+    /**
+     * Revokes every token issued to the user up to now. Tokens issued afterwards are unaffected.
+     */
+    public void revokeAllForUser(Long userId) {
+        // iat has second precision, so a token issued earlier in this second must be caught too
+        Instant revokedAt = Instant.ofEpochMilli(clock.getAsLong()).truncatedTo(ChronoUnit.SECONDS);
+        synchronized (writeLock) {
+            revokedUsers.put(userId, revokedAt);
+            filter.put(userHash(userId));
+        }
+    }
+
+    public boolean isRevoked(JwtPrincipal principal) {
+        BloomFilter current = filter;
+        boolean tokenHit = principal.tokenId() != null && current.mightContain(tokenHash(principal.tokenId()));
+        boolean userHit = principal.userId() != null && current.mightContain(userHash(principal.userId()));
+        if (!tokenHit && !userHit) {
+            return false;
+        }
+
+        boolean revoked = (tokenHit && revokedTokens.getIfPresent(principal.tokenId()) != null)
+                || (userHit && issuedBeforeRevocation(principal));
+        if (!revoked) {
+            falsePositives.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Replaces the filter with one holding only unexpired revocations, sized for at least twice as
+     * many entries as are live.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval:600000}",
+               initialDelayString = "${jwt.revocation.rebuild-interval:600000}")
+    public void rebuild() {
+        synchronized (writeLock) {
+            revokedTokens.cleanUp();
+            revokedUsers.cleanUp();
+            long live = revokedTokens.estimatedSize() + revokedUsers.estimatedSize();
+            BloomFilter rebuilt = BloomFilter.create(Math.max(expectedEntries, live * 2), falsePositiveRate);
+            revokedTokens.asMap().keySet().forEach(tokenId -> rebuilt.put(tokenHash(tokenId)));
+            revokedUsers.asMap().keySet().forEach(userId -> rebuilt.put(userHash(userId)));
+            filter = rebuilt;
+        }
+    }
+
+    private boolean issuedBeforeRevocation(JwtPrincipal principal) {
+        Instant revokedAt = revokedUsers.getIfPresent(principal.userId());
+        return revokedAt != null && (principal.issuedAt() == null || !principal.issuedAt().isAfter(revokedAt));
+    }
+
+    private static long tokenHash(String tokenId) {
+        return BloomFilter.hash(tokenId);
+    }
+
+    // Salted so user ids and token ids are hashed independently
+    private static long userHash(Long userId) {
+        return BloomFilter.mix(userId ^ 0x5bd1e9955bd1e995L);
+    }
+
+    private record UntilTokenExpiry(LongSupplier clock) implements Expiry<String, Instant> {
+
+        @Override
+        public long expireAfterCreate(String tokenId, Instant expiresAt, long currentTime) {
+            long remaining = expiresAt.toEpochMilli() - clock.getAsLong();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+            return expireAfterCreate(tokenId, expiresAt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
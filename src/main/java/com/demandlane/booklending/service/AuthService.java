@@ -1,8 +1,8 @@
 package com.demandlane.booklending.service;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import java.security.Principal;
+
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.demandlane.booklending.dto.AuthDto;
 import com.demandlane.booklending.dto.UserDto;
@@ -11,7 +11,11 @@ import com.demandlane.booklending.entity.User;
 import com.demandlane.booklending.exception.ResourceNotFoundException;
 import com.demandlane.booklending.mapper.UserMapper;
 import com.demandlane.booklending.repository.UserRepository;
+import com.demandlane.booklending.security.JwtPrincipal;
 import com.demandlane.booklending.security.JwtUtil;
+import com.demandlane.booklending.security.LoginAttemptTracker;
+import com.demandlane.booklending.security.PasswordHasher;
+import com.demandlane.booklending.security.TokenRevocationStore;
 
 import lombok.RequiredArgsConstructor;
 
@@ -21,17 +25,24 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
+    private final LoginAttemptTracker loginAttempts;
+    private final TokenRevocationStore tokenRevocationStore;
 
-    @Transactional
+    /**
+     * Registers a member. Not transactional on purpose: the lookup and the insert each hold a
+     * connection only for their own statement, so none is held while the password waits for and
+     * goes through the hasher. Of two registrations racing for one email, the second is still rejected
+     * by the unique email constraint.
+     */
     public UserDto.Response register(UserDto.Request request) {
         if (userRepository.findActiveByEmail(request.getEmail()).isPresent()) {
             throw new IllegalStateException("User with email " + request.getEmail() + " already exists");
         }
 
         User user = userMapper.toEntity(request);
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
         user.setRole(Role.MEMBER);
 
         User savedUser = userRepository.save(user);
@@ -39,15 +50,28 @@ public class AuthService {
         return userMapper.toResponse(savedUser);
     }
 
-    public AuthDto.LoginResponse login(AuthDto.LoginRequest request) {
-        User user = userRepository.findActiveByEmail(request.getEmail())
-                .orElseThrow(() -> new ResourceNotFoundException("Invalid email or password"));
+    /**
+     * Logs a user in. Emails and client addresses with too many recent failures are refused before
+     * the user is looked up.
+     *
+     * @param clientIp Address the request came from, or null if unknown
+     */
+    public AuthDto.LoginResponse login(AuthDto.LoginRequest request, String clientIp) {
+        loginAttempts.checkAllowed(request.getEmail(), clientIp);
+
+        User user = userRepository.findActiveByEmail(request.getEmail()).orElse(null);
+        if (user == null) {
+            loginAttempts.recordFailure(request.getEmail(), clientIp);
+            throw new ResourceNotFoundException("Invalid email or password");
+        }
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
+            loginAttempts.recordFailure(request.getEmail(), clientIp);
             throw new IllegalStateException("Invalid email or password");
         }
+        loginAttempts.recordSuccess(request.getEmail());
 
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole().name());
 
         return AuthDto.LoginResponse.builder()
                 .token(token)
@@ -55,4 +79,11 @@ public class AuthService {
                 .role(user.getRole().name())
                 .build();
     }
+
+    /**
+     * Revokes the token the request was authenticated with. Other sessions of the user stay valid.
+     */
+    public void logout(Principal principal) {
+        JwtPrincipal.of(principal).ifPresent(tokenRevocationStore::revoke);
+    }
 }
@@ -0,0 +1,309 @@
+package com.demandlane.booklending.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.repository.BookRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-process broadcast of book availability changes to the subscribers of the availability stream.
+ * <p>
+ * Writes report the books whose available copies they changed, and the report is taken when their
+ * transaction commits. Every {@code availability-stream.flush-interval} milliseconds the books
+ * reported since the last flush are read back in one query and their current counts are offered to
+ * each subscriber watching them. A burst of borrows of one title thus costs one read and one event
+ * per subscriber, and an event always carries a committed count. Nothing is read while nobody is
+ * subscribed.
+ * <p>
+ * Each subscriber buffers up to {@code availability-stream.buffer-size} events. When a slow client
+ * lets its buffer fill up, the oldest event is dropped: events are absolute counts, so a later one
+ * supersedes it. Events are written by a virtual thread that only runs while the subscriber has
+ * something to send, so an idle subscriber holds no thread, only its emitter and buffer, and a
+ * stalled client holds up nobody else. A comment is sent every
+ * {@code availability-stream.heartbeat-interval} milliseconds to keep proxies from closing idle
+ * streams and to notice clients that went away. Streams end after {@code availability-stream.timeout}
+ * milliseconds; clients reconnect.
+ * <p>
+ * Flushes and heartbeats run on a scheduler thread of the hub's own rather than on the shared
+ * {@code @Scheduled} one, so a long reconciliation or cache rebuild never delays events.
+ * <p>
+ * Open streams are published in {@code library.availability-stream.subscribers} and dropped
+ * events in {@code library.availability-stream.dropped}.
+ */
+@Component
+public class AvailabilityHub implements InitializingBean, DisposableBean {
+
+    static final String EVENT_NAME = "availability";
+
+    private final BookRepository bookRepository;
+    private final Executor executor;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter dropped;
+    private long flushIntervalMillis;
+    private long heartbeatIntervalMillis;
+    private ThreadPoolTaskScheduler scheduler;
+
+    @Autowired
+    public AvailabilityHub(BookRepository bookRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${availability-stream.buffer-size:64}") int bufferSize,
+                           @Value("${availability-stream.timeout:1800000}") long timeoutMillis,
+                           @Value("${availability-stream.flush-interval:250}") long flushIntervalMillis,
+                           @Value("${availability-stream.heartbeat-interval:30000}") long heartbeatIntervalMillis) {
+        this(bookRepository, meterRegistry, bufferSize, timeoutMillis,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("availability-stream-", 0).factory()));
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+
+    AvailabilityHub(BookRepository bookRepository, MeterRegistry meterRegistry, int bufferSize, long timeoutMillis,
+                    Executor executor) {
+        this.bookRepository = bookRepository;
+        this.executor = executor;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.timeoutMillis = timeoutMillis;
+        Gauge.builder("library.availability-stream.subscribers", subscribers, Set::size)
+                .description("Open availability streams")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("library.availability-stream.dropped")
+                .description("Availability events dropped from the buffer of a slow subscriber")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (flushIntervalMillis <= 0) {
+            // Driven by hand
+            return;
+        }
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("availability-stream-scheduler-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::flush, Duration.ofMillis(flushIntervalMillis));
+        scheduler.scheduleWithFixedDelay(this::heartbeat, Duration.ofMillis(heartbeatIntervalMillis));
+    }
+
+    /**
+     * Opens a stream of the availability of the given books, or of every book if none are given.
+     */
+    public SseEmitter subscribe(Collection<Long> bookIds) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        register(emitter, bookIds);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter, Collection<Long> bookIds) {
+        Subscriber subscriber = new Subscriber(emitter, bookIds == null ? Set.of() : Set.copyOf(bookIds));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // A stream that reaches its timeout just ends; the client reconnects
+        emitter.onTimeout(emitter::complete);
+        subscribers.add(subscriber);
+        // Sent at once, so the client sees the stream open before the first change
+        subscriber.heartbeat();
+    }
+
+    /**
+     * Reports that the available copies of a book changed. Inside a transaction the report is taken
+     * after commit, and dropped on rollback.
+     */
+    public void publish(Long bookId) {
+        publish(List.of(bookId));
+    }
+
+    public void publish(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changed.addAll(bookIds);
+                }
+            });
+        } else {
+            changed.addAll(bookIds);
+        }
+    }
+
+    void flush() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        // A book reported again while this runs is read below or by the next flush, never lost
+        List<Long> bookIds = new ArrayList<>();
+        for (Iterator<Long> it = changed.iterator(); it.hasNext(); ) {
+            bookIds.add(it.next());
+            it.remove();
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        List<BookDto.Availability> events = bookRepository.findAllById(bookIds).stream()
+                .filter(book -> !book.isDeleted())
+                .map(book -> new BookDto.Availability(book.getId(), book.getAvailableCopies(), book.getTotalCopies()))
+                .toList();
+        if (!events.isEmpty()) {
+            subscribers.forEach(subscriber -> subscriber.offer(events));
+        }
+    }
+
+    void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> bookIds;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<BookDto.Availability> buffer = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+
+        Subscriber(SseEmitter emitter, Set<Long> bookIds) {
+            this.emitter = emitter;
+            this.bookIds = bookIds;
+        }
+
+        void offer(List<BookDto.Availability> events) {
+            int drops = 0;
+            boolean offered = false;
+            lock.lock();
+            try {
+                for (BookDto.Availability event : events) {
+                    if (!bookIds.isEmpty() && !bookIds.contains(event.getBookId())) {
+                        continue;
+                    }
+                    if (buffer.size() == bufferSize) {
+                        buffer.pollFirst();
+                        drops++;
+                    }
+                    buffer.addLast(event);
+                    offered = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (drops > 0) {
+                dropped.increment(drops);
+            }
+            if (offered) {
+                schedule();
+            }
+        }
+
+        void heartbeat() {
+            heartbeatDue = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    draining.set(false);
+                }
+            }
+        }
+
+        /**
+         * Sends until the buffer is empty. A send that fails ends the subscription; the container
+         * completes the emitter itself.
+         */
+        private void drain() {
+            do {
+                try {
+                    sendPending();
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away, or the stream already ended
+                    subscribers.remove(this);
+                    return;
+                }
+                draining.set(false);
+                // An offer that came in after the last poll saw the flag still set and left the send to us
+            } while (hasPending() && draining.compareAndSet(false, true));
+        }
+
+        private void sendPending() throws IOException {
+            BookDto.Availability event;
+            while ((event = poll()) != null) {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(event));
+            }
+            if (heartbeatDue) {
+                heartbeatDue = false;
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+
+        private BookDto.Availability poll() {
+            lock.lock();
+            try {
+                return buffer.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean hasPending() {
+            if (heartbeatDue) {
+                return true;
+            }
+            lock.lock();
+            try {
+                return !buffer.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
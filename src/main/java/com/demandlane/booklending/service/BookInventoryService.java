@@ -0,0 +1,161 @@
+package com.demandlane.booklending.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.demandlane.booklending.config.LibraryProperties;
+import com.demandlane.booklending.config.SecondLevelCacheLocks;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.entity.BookInventorySlot;
+import com.demandlane.booklending.repository.BookInventorySlotRepository;
+import com.demandlane.booklending.repository.BookRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Claims and releases book copies in either inventory mode.
+ * <p>
+ * Most books keep their available copies on the {@code books} row. Books with at least
+ * {@code library.sharded-inventory-threshold} total copies split them across
+ * {@code library.sharded-inventory-slots} {@link BookInventorySlot} rows instead: a borrow hashes
+ * the user to a slot and moves on to the next slot when that one is empty, so concurrent borrows
+ * of the same title mostly lock different rows. For sharded books {@link Book#getAvailableCopies()}
+ * is an aggregate of the slots, refreshed every {@code library.sharded-inventory-refresh-interval}
+ * milliseconds and whenever an admin edits the book. The refresh only writes when some book is
+ * sharded, and with sharding disabled it stops for good once the last one has been edited back.
+ * <p>
+ * Every method joins the caller's transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class BookInventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookInventoryService.class);
+
+    private final BookRepository bookRepository;
+    private final BookInventorySlotRepository slotRepository;
+    private final LibraryProperties libraryProperties;
+    private final CatalogCache catalogCache;
+    private final AvailabilityHub availabilityHub;
+    private final SecondLevelCacheLocks cacheLocks;
+    private volatile boolean refreshRetired;
+
+    /**
+     * Claims one copy of an active book for a user.
+     *
+     * @return true if a copy was claimed, false if the book is inactive, missing or has no copy left
+     */
+    public boolean claim(Long bookId, Long userId, LocalDateTime now) {
+        // Single-row books, by far the common case, need only this one statement
+        if (bookRepository.claimCopy(bookId, now) == 1) {
+            cacheLocks.lockUntilCompletion(Book.class, List.of(bookId));
+            catalogCache.evictAvailability(bookId);
+            availabilityHub.publish(bookId);
+            return true;
+        }
+        // A sharded book's listed count only moves when its aggregate is refreshed
+        int slots = bookRepository.findInventorySlots(bookId).orElse(0);
+        int first = Math.floorMod(Long.hashCode(userId), Math.max(slots, 1));
+        for (int i = 0; i < slots; i++) {
+            if (slotRepository.claimCopy(bookId, (first + i) % slots) == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Puts back the copy held by a loan. Sharded books get it back in a slot picked by the loan id.
+     */
+    public void release(Long bookId, Long loanId, LocalDateTime now) {
+        if (bookRepository.releaseCopy(bookId, now) == 1) {
+            cacheLocks.lockUntilCompletion(Book.class, List.of(bookId));
+            catalogCache.evictAvailability(bookId);
+            availabilityHub.publish(bookId);
+            return;
+        }
+        int slots = bookRepository.findInventorySlots(bookId).orElse(0);
+        if (slots > 0) {
+            slotRepository.releaseCopy(bookId, Math.floorMod(Long.hashCode(loanId), slots));
+        }
+    }
+
+    /**
+     * Number of slots a book with this many total copies should be split across, 0 for a single row.
+     */
+    public int slotsFor(Long totalCopies) {
+        long threshold = libraryProperties.getShardedInventoryThreshold();
+        if (threshold <= 0 || totalCopies == null || totalCopies < threshold) {
+            return 0;
+        }
+        return Math.max(1, libraryProperties.getShardedInventorySlots());
+    }
+
+    /**
+     * Brings a created or edited book's inventory in line with its total copies, switching the mode
+     * and redistributing the available copies across the slots as needed. The slots are locked while
+     * they are rewritten. The book itself is only modified, the caller saves it.
+     *
+     * @param requestedAvailable available copies set by the edit, or null to keep the current count
+     */
+    public void apply(Book book, Long requestedAvailable) {
+        int target = slotsFor(book.getTotalCopies());
+        if (target == 0 && book.getInventorySlots() == 0) {
+            return;
+        }
+
+        List<BookInventorySlot> slots = slotRepository.lockAllByBookId(book.getId());
+        long available = slots.isEmpty() || requestedAvailable != null
+                ? book.getAvailableCopies()
+                : slots.stream().mapToLong(BookInventorySlot::getAvailableCopies).sum();
+        available = Math.max(0, available);
+
+        List<BookInventorySlot> kept = new ArrayList<>(target);
+        for (int slot = 0; slot < target; slot++) {
+            BookInventorySlot row = slot < slots.size() ? slots.get(slot)
+                    : BookInventorySlot.builder().bookId(book.getId()).slot(slot).build();
+            row.setAvailableCopies(available / target + (slot < available % target ? 1 : 0));
+            kept.add(row);
+        }
+        if (slots.size() > target) {
+            slotRepository.deleteAll(slots.subList(target, slots.size()));
+        }
+        slotRepository.saveAll(kept);
+
+        if (book.getInventorySlots() != target) {
+            log.info("Book {} inventory moved from {} to {} slots", book.getId(), book.getInventorySlots(), target);
+        }
+        book.setInventorySlots(target);
+        book.setAvailableCopies(available);
+    }
+
+    @Scheduled(fixedDelayString = "${library.sharded-inventory-refresh-interval:5000}",
+               initialDelayString = "${library.sharded-inventory-refresh-interval:5000}")
+    public void refreshAggregates() {
+        if (refreshRetired) {
+            return;
+        }
+        if (!bookRepository.existsByInventorySlotsGreaterThanAndDeletedAtIsNull(0)) {
+            // With sharding disabled no book becomes sharded again, so the refresh is done for good
+            refreshRetired = libraryProperties.getShardedInventoryThreshold() <= 0;
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int changed = bookRepository.refreshShardedAvailability(now);
+        if (changed > 0) {
+            log.debug("Refreshed available copies of {} sharded books", changed);
+            List<Long> refreshed = bookRepository.findShardedIdsUpdatedAt(now);
+            cacheLocks.lockUntilCompletion(Book.class, refreshed);
+            catalogCache.invalidateAll();
+            availabilityHub.publish(refreshed);
+        }
+    }
+}
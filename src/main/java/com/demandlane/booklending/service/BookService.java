@@ -1,15 +1,30 @@
 package com.demandlane.booklending.service;
 
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.demandlane.booklending.dto.ChangeFeedResponse;
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
 import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.dto.PageResponse;
+import com.demandlane.booklending.dto.Revision;
 import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.exception.PreconditionFailedException;
 import com.demandlane.booklending.exception.ResourceNotFoundException;
 import com.demandlane.booklending.mapper.BookMapper;
 import com.demandlane.booklending.repository.BookRepository;
+import com.demandlane.booklending.repository.ChangeFeedHorizon;
+import com.demandlane.booklending.repository.RevisionQuery;
+import com.demandlane.booklending.specification.ChangeFeed;
+import com.demandlane.booklending.specification.KeysetPagination;
 import com.demandlane.booklending.specification.SpecificationBuilder;
 
 import lombok.RequiredArgsConstructor;
@@ -20,6 +35,13 @@ public class BookService {
 
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
+    private final RowCountCache rowCountCache;
+    private final BorrowAdmissionGate borrowGate;
+    private final BookInventoryService bookInventoryService;
+    private final CatalogCache catalogCache;
+    private final RevisionQuery revisionQuery;
+    private final ChangeFeedHorizon changeFeedHorizon;
+    private final AvailabilityHub availabilityHub;
 
     public Page<BookDto.Response> findAll(BookDto.Filter filter, Pageable pageable) {
         Specification<Book> spec = SpecificationBuilder.fromFilter(filter, Book.class);
@@ -27,30 +49,123 @@ public class BookService {
         return books.map(bookMapper::toResponse);
     }
 
+    public PageResponse<BookDto.Response> findAll(BookDto.Filter filter, Pageable pageable, CountMode countMode) {
+        if (countMode != CountMode.ESTIMATED) {
+            return catalogCache.page(filter, pageable, countMode, () -> load(filter, pageable, countMode));
+        }
+        // Only the rows are cached: the estimate has its own refresh cycle, and whether it was
+        // counted for this request must not be replayed to later ones
+        PageResponse<BookDto.Response> rows = catalogCache.page(filter, pageable, CountMode.NONE,
+                () -> load(filter, pageable, CountMode.NONE));
+        Specification<Book> spec = SpecificationBuilder.fromFilter(filter, Book.class);
+        RowCountCache.Estimate estimate = rowCountCache.lookup(Book.class, filter, () -> bookRepository.count(spec));
+        return PageResponse.estimated(new SliceImpl<>(rows.getData(), pageable, !rows.isLast()),
+                estimate.total(), estimate.exact());
+    }
+
+    private PageResponse<BookDto.Response> load(BookDto.Filter filter, Pageable pageable, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return PageResponse.of(findAll(filter, pageable));
+        }
+        Specification<Book> spec = SpecificationBuilder.fromFilter(filter, Book.class);
+        return PageResponse.of(bookRepository.findBy(spec, query -> query.slice(pageable)).map(bookMapper::toResponse));
+    }
+
+    public CursorPageResponse<BookDto.Response> findAllByCursor(BookDto.Filter filter, String cursor, Pageable pageable) {
+        Specification<Book> spec = SpecificationBuilder.fromFilter(filter, Book.class);
+        return KeysetPagination.fetch(bookRepository, Book.class, spec, cursor, pageable, bookMapper::toResponse);
+    }
+
+    /**
+     * Books changed since the cursor, soft-deleted ones as tombstones.
+     */
+    public ChangeFeedResponse<BookDto.Response> changes(String cursor, int size) {
+        return ChangeFeed.fetch(bookRepository, cursor, size, changeFeedHorizon.current(),
+                bookMapper::toResponse, List.of());
+    }
+
+    /**
+     * Revision of the books matching a listing filter.
+     */
+    public Revision revision(BookDto.Filter filter) {
+        return catalogCache.revision(filter,
+                () -> revisionQuery.of(Book.class, SpecificationBuilder.fromFilter(filter, Book.class)));
+    }
+
     public BookDto.Response findById(Long id) {
-        Book book = bookRepository.findActiveById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
-        return bookMapper.toResponse(book);
+        return findSerializedById(id).response();
     }
 
+    /**
+     * Same lookup as {@link #findById}, with the response's finished JSON body and ETag.
+     */
+    public CatalogCache.SerializedBook findSerializedById(Long id) {
+        return catalogCache.book(id, () -> bookRepository.findActiveById(id)
+                .map(bookMapper::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id)));
+    }
+
+    @Transactional
     public BookDto.Response save(BookDto.Request request) {
         Book book = bookMapper.toEntity(request);
         Book saved = bookRepository.save(book);
+        // The slots reference the book, so they can only be created once it has an id
+        bookInventoryService.apply(saved, null);
+        catalogCache.evictBook(saved.getId());
         return bookMapper.toResponse(saved);
     }
 
-    public BookDto.Response update(Long id, BookDto.Request request) {
+    /**
+     * Updates a book. With an {@code If-Match} value the update only goes ahead while the book is
+     * still as the client read it, so an edit based on a stale count cannot overwrite a borrow or
+     * another edit. A change committed after the check still fails the versioned save.
+     *
+     * @param ifMatch ETags from {@code GET /books/{id}}, or null to update unconditionally; such an update
+     *                is not retried on a conflict, as it would re-apply its count over the change it lost to
+     * @throws PreconditionFailedException if none of the given ETags matches the current book
+     */
+    @Transactional
+    public BookDto.Response update(Long id, BookDto.Request request, String ifMatch) {
         Book existing = bookRepository.findActiveById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
+        if (ifMatch != null && !matches(ifMatch, catalogCache.etag(bookMapper.toResponse(existing)))) {
+            throw new PreconditionFailedException("Book " + id + " was changed since it was read");
+        }
         bookMapper.updateEntity(existing, request);
+        bookInventoryService.apply(existing, request.getAvailableCopies());
         Book updated = bookRepository.save(existing);
+        borrowGate.invalidate(id);
+        catalogCache.evictBook(id);
+        availabilityHub.publish(id);
         return bookMapper.toResponse(updated);
     }
 
+    /**
+     * Opens a stream of availability changes of the given books, or of every book if none are given.
+     */
+    public SseEmitter subscribeAvailability(List<Long> bookIds) {
+        return availabilityHub.subscribe(bookIds);
+    }
+
     public void delete(Long id) {
         Book book = bookRepository.findActiveById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
         book.softDelete();
         bookRepository.save(book);
+        borrowGate.invalidate(id);
+        catalogCache.evictBook(id);
+    }
+
+    /**
+     * Strong comparison of an {@code If-Match} header against a tag: weak tags never match.
+     */
+    private static boolean matches(String ifMatch, String etag) {
+        for (String candidate : ifMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
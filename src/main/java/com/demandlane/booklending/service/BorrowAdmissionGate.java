@@ -0,0 +1,267 @@
+package com.demandlane.booklending.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.demandlane.booklending.config.LibraryProperties;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.exception.BorrowingRuleViolationException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-process admission gate in front of {@link LoanService#borrowBook}, so that a borrow storm on a
+ * single title does not take a database connection per request only to find no copies left.
+ * <p>
+ * The gate remembers the available copies last seen per book, as reported by the borrow flow.
+ * A borrow is rejected without touching the database while a title is known to be exhausted, or
+ * while as many borrows of it are already in flight as it has copies left. Titles the gate knows
+ * nothing about are always admitted. The database stays the source of truth: what the gate knows
+ * is only a hint. Returns and admin book updates drop it, and it also expires after
+ * {@code library.borrow-gate-ttl} milliseconds, to pick up changes made by other instances.
+ * Expired titles without borrows in flight are swept out of their stripe at most once per TTL, so
+ * the gate only holds titles borrowed within about two TTLs.
+ * <p>
+ * Books are spread over {@code library.borrow-gate-stripes} lock stripes, so unrelated titles do not
+ * contend on the same lock. Rejections are counted in {@code library.borrow-gate.rejections},
+ * tagged with {@code reason=exhausted|saturated}.
+ */
+@Component
+public class BorrowAdmissionGate {
+
+    private static final long UNKNOWN = -1;
+
+    private final Stripe[] stripes;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Counter exhaustedRejections;
+    private final Counter saturatedRejections;
+
+    @Autowired
+    public BorrowAdmissionGate(LibraryProperties libraryProperties, MeterRegistry meterRegistry) {
+        this(libraryProperties, meterRegistry, System::nanoTime);
+    }
+
+    BorrowAdmissionGate(LibraryProperties libraryProperties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, libraryProperties.getBorrowGateStripes() - 1)) << 1;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(nanoClock.getAsLong());
+        }
+        this.ttlNanos = Duration.ofMillis(libraryProperties.getBorrowGateTtl()).toNanos();
+        this.nanoClock = nanoClock;
+        this.exhaustedRejections = rejections(meterRegistry, "exhausted");
+        this.saturatedRejections = rejections(meterRegistry, "saturated");
+    }
+
+    /**
+     * Runs the borrow if the gate admits it, holding one in-flight slot of the book until it completes.
+     *
+     * @throws BorrowingRuleViolationException if the book is known to have no copies left for this borrow
+     */
+    public <T> T admit(Long bookId, Supplier<T> borrow) {
+        Stripe stripe = stripeFor(bookId);
+        stripe.lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            stripe.sweep(now, ttlNanos);
+            Title title = stripe.current(bookId, now, ttlNanos);
+            if (title != null && title.available != UNKNOWN) {
+                if (title.available == 0) {
+                    exhaustedRejections.increment();
+                    throw noAvailableCopies(title);
+                }
+                if (title.inFlight >= title.available) {
+                    saturatedRejections.increment();
+                    throw noAvailableCopies(title);
+                }
+            }
+            if (title == null) {
+                title = new Title();
+                stripe.titles.put(bookId, title);
+            }
+            title.inFlight++;
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        try {
+            return borrow.get();
+        } finally {
+            release(stripe, bookId);
+        }
+    }
+
+    /**
+     * Records the available copies of a book as just seen by a borrow.
+     */
+    public void recordAvailability(Book book) {
+        recordAvailability(book.getId(), book.getTitle(), book.getAvailableCopies());
+    }
+
+    /**
+     * Records that a borrow found no copy of the book left to claim.
+     */
+    public void recordExhausted(Book book) {
+        recordAvailability(book.getId(), book.getTitle(), 0);
+    }
+
+    private void recordAvailability(Long bookId, String name, long availableCopies) {
+        Stripe stripe = stripeFor(bookId);
+        stripe.lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            stripe.sweep(now, ttlNanos);
+            Title title = stripe.titles.computeIfAbsent(bookId, id -> new Title());
+            title.name = name;
+            title.available = Math.max(0, availableCopies);
+            title.observedAt = now;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets what is known about a book's copies. Inside a transaction this happens after commit,
+     * so that a concurrent borrow cannot read the old count back into the gate.
+     */
+    public void invalidate(Long bookId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget(bookId);
+                }
+            });
+        } else {
+            forget(bookId);
+        }
+    }
+
+    private void forget(Long bookId) {
+        Stripe stripe = stripeFor(bookId);
+        stripe.lock.lock();
+        try {
+            Title title = stripe.titles.get(bookId);
+            if (title == null) {
+                return;
+            }
+            if (title.inFlight == 0) {
+                stripe.titles.remove(bookId);
+            } else {
+                title.forget();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void release(Stripe stripe, Long bookId) {
+        stripe.lock.lock();
+        try {
+            Title title = stripe.titles.get(bookId);
+            if (title == null) {
+                return;
+            }
+            title.inFlight--;
+            if (title.inFlight <= 0 && title.available == UNKNOWN) {
+                stripe.titles.remove(bookId);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Number of books the gate currently holds an entry for, across all stripes.
+     */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.titles.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(Long bookId) {
+        int hash = Long.hashCode(bookId);
+        hash ^= hash >>> 16;
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    private static BorrowingRuleViolationException noAvailableCopies(Title title) {
+        return new BorrowingRuleViolationException(
+            String.format("The book '%s' has no available copies at this time.", title.name)
+        );
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("library.borrow-gate.rejections")
+                .description("Borrows rejected by the in-process admission gate")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, Title> titles = new HashMap<>();
+        private long sweptAt;
+
+        Stripe(long now) {
+            this.sweptAt = now;
+        }
+
+        /**
+         * Drops every title whose availability expired and that has no borrow in flight, at most
+         * once per TTL. Caller holds the lock.
+         */
+        void sweep(long now, long ttlNanos) {
+            if (now - sweptAt <= ttlNanos) {
+                return;
+            }
+            sweptAt = now;
+            titles.values().removeIf(title -> title.inFlight == 0 && now - title.observedAt > ttlNanos);
+        }
+
+        /**
+         * Returns the book's entry, dropping an expired availability first. Caller holds the lock.
+         */
+        Title current(Long bookId, long now, long ttlNanos) {
+            Title title = titles.get(bookId);
+            if (title != null && title.available != UNKNOWN && now - title.observedAt > ttlNanos) {
+                if (title.inFlight == 0) {
+                    titles.remove(bookId);
+                    return null;
+                }
+                title.forget();
+            }
+            return title;
+        }
+    }
+
+    private static final class Title {
+        private String name;
+        private long available = UNKNOWN;
+        private long observedAt;
+        private int inFlight;
+
+        void forget() {
+            available = UNKNOWN;
+        }
+    }
+}
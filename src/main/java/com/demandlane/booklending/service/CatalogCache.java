@@ -0,0 +1,210 @@
+package com.demandlane.booklending.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.PageResponse;
+import com.demandlane.booklending.dto.Revision;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Mapped book responses for the catalog endpoints: single books by id, and the first page of
+ * {@code GET /api/v1/books} by filter, sort, page size and count mode. Later pages are rare
+ * and are not cached. {@code count=ESTIMATED} listings reuse the rows cached for
+ * {@code count=NONE} and take their total from {@link RowCountCache} on every request;
+ * {@code count=EXACT} totals are cached with their rows and invalidated with them. Single books are also kept as their finished JSON body and a strong
+ * ETag, serialized once per load with the application's own mapper, so a hit is written out
+ * without touching Jackson. The {@link Revision} of each listing filter is cached too, so a
+ * conditional request for a cached page needs no query either.
+ * <p>
+ * Writes invalidate precisely, both at once and again when their transaction completes, so
+ * neither the writer nor a concurrent read can leave the old state cached. Dropping pages and
+ * revisions skips loads still in flight, so each eviction also advances a generation, and a page
+ * or revision whose load overlapped one is dropped as soon as it is returned:
+ * <ul>
+ *   <li>a book edit drops that book and every cached page, as the edit may move it in or out of
+ *       any filter</li>
+ *   <li>an availability change drops that book and only the pages listing it or sorted by
+ *       {@code availableCopies}</li>
+ *   <li>either drops every revision, as each covers the whole filtered set</li>
+ * </ul>
+ * Entries also expire after {@code catalog-cache.ttl} milliseconds, to pick up writes made by
+ * other instances. Hit, miss and eviction counts are published as {@code cache.*} metrics with
+ * {@code cache=catalog.books}, {@code cache=catalog.pages} and {@code cache=catalog.revisions}.
+ * <p>
+ * Cached responses are shared between requests and must not be modified.
+ */
+@Component
+public class CatalogCache {
+
+    private static final String AVAILABLE_COPIES = "availableCopies";
+
+    private final Cache<Long, SerializedBook> books;
+    private final Cache<PageKey, Stamped<PageResponse<BookDto.Response>>> pages;
+    private final Cache<BookDto.Filter, Stamped<Revision>> revisions;
+    private final JsonMapper jsonMapper;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CatalogCache(MeterRegistry meterRegistry,
+                        JsonMapper jsonMapper,
+                        @Value("${catalog-cache.max-books:10000}") long maxBooks,
+                        @Value("${catalog-cache.max-pages:1000}") long maxPages,
+                        @Value("${catalog-cache.ttl:60000}") long ttlMillis) {
+        this.books = Caffeine.newBuilder()
+                .maximumSize(maxBooks)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        this.revisions = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        this.jsonMapper = jsonMapper;
+        CaffeineCacheMetrics.monitor(meterRegistry, books, "catalog.books");
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "catalog.pages");
+        CaffeineCacheMetrics.monitor(meterRegistry, revisions, "catalog.revisions");
+    }
+
+    /**
+     * Returns the cached response for a book, loading and serializing it on a miss. Nothing is
+     * cached if the loader throws.
+     */
+    public SerializedBook book(Long id, Supplier<BookDto.Response> loader) {
+        return books.get(id, key -> serialize(loader.get()));
+    }
+
+    /**
+     * Returns the cached listing for a first page, loading it on a miss. Other pages are always
+     * loaded.
+     */
+    public PageResponse<BookDto.Response> page(BookDto.Filter filter, Pageable pageable, CountMode countMode,
+                                               Supplier<PageResponse<BookDto.Response>> loader) {
+        if (pageable.isUnpaged() || pageable.getPageNumber() != 0) {
+            return loader.get();
+        }
+        PageKey key = new PageKey(filter, pageable.getSort(), pageable.getPageSize(), countMode);
+        return load(pages, key, loader);
+    }
+
+    /**
+     * Returns the cached revision of a listing filter, loading it on a miss.
+     */
+    public Revision revision(BookDto.Filter filter, Supplier<Revision> loader) {
+        return load(revisions, filter, loader);
+    }
+
+    /**
+     * Drops a book, every cached page and every revision.
+     */
+    public void evictBook(Long bookId) {
+        evict(() -> {
+            books.invalidate(bookId);
+            pages.invalidateAll();
+            revisions.invalidateAll();
+        });
+    }
+
+    /**
+     * Drops a book, the pages its available copies appear in and every revision.
+     */
+    public void evictAvailability(Long bookId) {
+        evict(() -> {
+            books.invalidate(bookId);
+            revisions.invalidateAll();
+            pages.asMap().entrySet().removeIf(entry -> entry.getKey().sortedByAvailability()
+                    || entry.getValue().value().getData().stream().anyMatch(book -> bookId.equals(book.getId())));
+        });
+    }
+
+    public void invalidateAll() {
+        evict(() -> {
+            books.invalidateAll();
+            pages.invalidateAll();
+            revisions.invalidateAll();
+        });
+    }
+
+    /**
+     * The ETag a book response is served with, for checking a client's {@code If-Match}.
+     */
+    public String etag(BookDto.Response response) {
+        return serialize(response).etag();
+    }
+
+    private SerializedBook serialize(BookDto.Response response) {
+        byte[] json = jsonMapper.writeValueAsBytes(response);
+        return new SerializedBook(response, json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+    }
+
+    private <K, V> V load(Cache<K, Stamped<V>> cache, K key, Supplier<V> loader) {
+        long started = generation.get();
+        Stamped<V> stamped = cache.get(key, k -> new Stamped<>(loader.get(), started));
+        if (stamped.generation() == started && generation.get() != started) {
+            // An eviction ran while this was loading and skipped it; it may predate the write
+            cache.asMap().remove(key, stamped);
+        }
+        return stamped.value();
+    }
+
+    // Also after rollback: reads later in the same transaction may have cached its uncommitted state
+    private void evict(Runnable eviction) {
+        Runnable advancing = () -> {
+            generation.incrementAndGet();
+            eviction.run();
+        };
+        advancing.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    advancing.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * A book response with its UTF-8 JSON body and quoted strong ETag. The body is shared and
+     * must not be modified.
+     */
+    public record SerializedBook(BookDto.Response response, byte[] json, String etag) {
+    }
+
+    /**
+     * A cached value with the generation its load started in.
+     */
+    private record Stamped<V>(V value, long generation) {
+    }
+
+    /**
+     * First-page key. The filter DTO has value equality.
+     */
+    private record PageKey(BookDto.Filter filter, Sort sort, int size, CountMode countMode) {
+
+        boolean sortedByAvailability() {
+            return sort.getOrderFor(AVAILABLE_COPIES) != null;
+        }
+    }
+}
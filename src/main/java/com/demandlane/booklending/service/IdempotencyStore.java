@@ -0,0 +1,129 @@
+package com.demandlane.booklending.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.demandlane.booklending.config.LibraryProperties;
+import com.demandlane.booklending.exception.InvalidIdempotencyKeyException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Remembers the outcome of borrow and return requests by their {@code Idempotency-Key} header, so
+ * that a retried or double-submitted request is answered with the original response instead of
+ * borrowing twice or failing with "already returned".
+ * <p>
+ * Keys are scoped to the user sending them and bound to the operation and target they were first
+ * used for; reusing a key for a different request is rejected. A duplicate that arrives while the
+ * first request is still running waits for it and gets the same result. Only successful responses
+ * are kept, for {@code library.idempotency-ttl} milliseconds: when the first execution fails, its
+ * waiting duplicates get the same error and the next retry runs the request again. Replays are
+ * counted in {@code library.idempotency.replays}.
+ * <p>
+ * The store is per instance. Behind a load balancer without sticky sessions a retry can land on an
+ * instance that has not seen the key, and is then executed normally.
+ */
+@Component
+public class IdempotencyStore {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<Key, Entry> entries;
+    private final Counter replays;
+
+    @Autowired
+    public IdempotencyStore(LibraryProperties libraryProperties, MeterRegistry meterRegistry) {
+        this(libraryProperties, meterRegistry, Ticker.systemTicker());
+    }
+
+    IdempotencyStore(LibraryProperties libraryProperties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(libraryProperties.getIdempotencyMaxKeys())
+                .expireAfterWrite(Duration.ofMillis(libraryProperties.getIdempotencyTtl()))
+                .ticker(ticker)
+                .build();
+        this.replays = Counter.builder("library.idempotency.replays")
+                .description("Borrow and return requests answered from a previous execution")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs an operation once per user and key. Without a key the operation simply runs.
+     *
+     * @param userId The user sending the request
+     * @param idempotencyKey The client's key, or null
+     * @param operation Name of the operation, e.g. {@code borrow}
+     * @param target Id of the book or loan the operation acts on
+     * @return The operation's result, and whether it was replayed from an earlier execution
+     * @throws InvalidIdempotencyKeyException if the key is too long or was used for another request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(Long userId, String idempotencyKey, String operation, Long target, Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return new Outcome<>(action.get(), false);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        Key key = new Key(userId, idempotencyKey);
+        Entry entry = new Entry(operation, target, new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(key, entry);
+        if (existing != null) {
+            if (!existing.operation().equals(operation) || !existing.target().equals(target)) {
+                throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key was already used for a different request");
+            }
+            T result = (T) await(existing.result());
+            replays.increment();
+            return new Outcome<>(result, true);
+        }
+
+        try {
+            T result = action.get();
+            entry.result().complete(result);
+            return new Outcome<>(result, false);
+        } catch (RuntimeException | Error e) {
+            entries.asMap().remove(key, entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    public record Outcome<T>(T value, boolean replayed) {
+    }
+
+    private record Key(Long userId, String idempotencyKey) {
+    }
+
+    private record Entry(String operation, Long target, CompletableFuture<Object> result) {
+    }
+}
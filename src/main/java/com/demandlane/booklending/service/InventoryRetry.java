@@ -0,0 +1,147 @@
+package com.demandlane.booklending.service;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.retry.RetryException;
+import org.springframework.core.retry.RetryListener;
+import org.springframework.core.retry.RetryPolicy;
+import org.springframework.core.retry.RetryState;
+import org.springframework.core.retry.RetryTemplate;
+import org.springframework.core.retry.Retryable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import com.demandlane.booklending.config.LibraryProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Re-runs an inventory unit of work (return, book update) when it loses an optimistic lock race. Borrows
+ * only run guarded updates, which cannot lose such a race, and are not wrapped.
+ * <p>
+ * The unit of work must open its own transaction, so every attempt reads fresh rows. Waits grow
+ * exponentially from {@code library.inventory-retry-delay} up to {@code library.inventory-retry-max-delay}
+ * and are jittered so that colliding requests do not retry in lockstep. Once the retries are used up
+ * the last {@link OptimisticLockingFailureException} is rethrown; other exceptions are never retried.
+ * <p>
+ * Conflicts are counted in {@code library.inventory.conflicts}, tagged with the operation, the book and
+ * the outcome: {@code retried} per re-run, {@code recovered} when a re-run succeeds and {@code exhausted}
+ * when the retries run out. Only the first {@code library.inventory-conflict-tagged-books} books get
+ * their own tag, later ones are reported as {@code other}.
+ */
+@Component
+public class InventoryRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryRetry.class);
+
+    static final String CONFLICTS_METRIC = "library.inventory.conflicts";
+    static final String UNKNOWN_BOOK = "unknown";
+    static final String OTHER_BOOKS = "other";
+
+    private final RetryTemplate retryTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int taggedBooksLimit;
+    private final Set<Long> taggedBooks = ConcurrentHashMap.newKeySet();
+
+    public InventoryRetry(LibraryProperties libraryProperties, MeterRegistry meterRegistry) {
+        Duration delay = Duration.ofMillis(libraryProperties.getInventoryRetryDelay());
+        RetryPolicy retryPolicy = RetryPolicy.builder()
+                .includes(OptimisticLockingFailureException.class)
+                .maxRetries(libraryProperties.getInventoryRetryMaxRetries())
+                .delay(delay)
+                .jitter(delay)
+                .multiplier(2)
+                .maxDelay(Duration.ofMillis(libraryProperties.getInventoryRetryMaxDelay()))
+                .build();
+        this.retryTemplate = new RetryTemplate(retryPolicy);
+        this.retryTemplate.setRetryListener(new ConflictListener());
+        this.meterRegistry = meterRegistry;
+        this.taggedBooksLimit = libraryProperties.getInventoryConflictTaggedBooks();
+    }
+
+    /**
+     * Runs the unit of work, retrying it on optimistic lock conflicts.
+     *
+     * @param operation short operation name used in logs and metrics, e.g. "return"
+     * @param bookId    the book whose inventory is touched, or null if not known up front
+     */
+    public <T> T run(String operation, Long bookId, Supplier<T> work) {
+        try {
+            return retryTemplate.execute(new InventoryWork<>(operation, bookId, work));
+        } catch (RetryException e) {
+            Throwable last = e.getLastException() != null ? e.getLastException() : e.getCause();
+            if (last instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (last instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Inventory " + operation + " failed", last);
+        }
+    }
+
+    private String bookTag(Long bookId) {
+        if (bookId == null) {
+            return UNKNOWN_BOOK;
+        }
+        if (taggedBooks.contains(bookId) || (taggedBooks.size() < taggedBooksLimit && taggedBooks.add(bookId))) {
+            return bookId.toString();
+        }
+        return OTHER_BOOKS;
+    }
+
+    private void count(InventoryWork<?> work, String outcome) {
+        Counter.builder(CONFLICTS_METRIC)
+                .description("Optimistic lock conflicts on inventory updates")
+                .tag("operation", work.operation())
+                .tag("book", bookTag(work.bookId()))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record InventoryWork<T>(String operation, Long bookId, Supplier<T> work) implements Retryable<T> {
+
+        @Override
+        public T execute() {
+            return work.get();
+        }
+
+        @Override
+        public String getName() {
+            return "inventory-" + operation;
+        }
+    }
+
+    private class ConflictListener implements RetryListener {
+
+        @Override
+        public void beforeRetry(RetryPolicy retryPolicy, Retryable<?> retryable, RetryState retryState) {
+            InventoryWork<?> work = (InventoryWork<?>) retryable;
+            log.debug("Retrying {} of book {} after optimistic lock conflict (retry {})",
+                    work.operation(), work.bookId(), retryState.getRetryCount() + 1);
+            count(work, "retried");
+        }
+
+        @Override
+        public void onRetrySuccess(RetryPolicy retryPolicy, Retryable<?> retryable, Object result) {
+            count((InventoryWork<?>) retryable, "recovered");
+        }
+
+        @Override
+        public void onRetryPolicyExhaustion(RetryPolicy retryPolicy, Retryable<?> retryable, RetryException exception) {
+            InventoryWork<?> work = (InventoryWork<?>) retryable;
+            if (exception.getLastException() instanceof OptimisticLockingFailureException) {
+                log.warn("Giving up {} of book {} after {} optimistic lock retries",
+                        work.operation(), work.bookId(), exception.getRetryCount());
+                count(work, "exhausted");
+            }
+        }
+    }
+}
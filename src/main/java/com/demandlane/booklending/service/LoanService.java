@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
@@ -13,16 +14,27 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.demandlane.booklending.config.LibraryProperties;
+import com.demandlane.booklending.dto.ChangeFeedResponse;
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
 import com.demandlane.booklending.dto.LoanDto;
+import com.demandlane.booklending.dto.PageResponse;
+import com.demandlane.booklending.dto.Revision;
 import com.demandlane.booklending.entity.Book;
 import com.demandlane.booklending.entity.Loan;
 import com.demandlane.booklending.entity.User;
+import com.demandlane.booklending.entity.UserLoanSummary;
 import com.demandlane.booklending.exception.BorrowingRuleViolationException;
 import com.demandlane.booklending.exception.ResourceNotFoundException;
 import com.demandlane.booklending.mapper.LoanMapper;
 import com.demandlane.booklending.repository.BookRepository;
 import com.demandlane.booklending.repository.LoanRepository;
+import com.demandlane.booklending.repository.ChangeFeedHorizon;
+import com.demandlane.booklending.repository.RevisionQuery;
 import com.demandlane.booklending.repository.UserRepository;
+import com.demandlane.booklending.security.JwtPrincipal;
+import com.demandlane.booklending.specification.ChangeFeed;
+import com.demandlane.booklending.specification.KeysetPagination;
 import com.demandlane.booklending.specification.SpecificationBuilder;
 
 import lombok.RequiredArgsConstructor;
@@ -39,6 +51,12 @@ public class LoanService {
     private final BookRepository bookRepository;
     private final LoanMapper loanMapper;
     private final LibraryProperties libraryProperties;
+    private final RowCountCache rowCountCache;
+    private final LoanSummaryService loanSummaryService;
+    private final BorrowAdmissionGate borrowGate;
+    private final BookInventoryService bookInventoryService;
+    private final RevisionQuery revisionQuery;
+    private final ChangeFeedHorizon changeFeedHorizon;
 
     public Page<LoanDto.Response> findAll(LoanDto.Filter filter, Pageable pageable) {
         Specification<Loan> spec = SpecificationBuilder.fromFilter(filter, Loan.class);
@@ -46,24 +64,80 @@ public class LoanService {
         return loans.map(loanMapper::toResponse);
     }
 
+    public PageResponse<LoanDto.Response> findAll(LoanDto.Filter filter, Pageable pageable, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return PageResponse.of(findAll(filter, pageable));
+        }
+        Specification<Loan> spec = SpecificationBuilder.fromFilter(filter, Loan.class);
+        Slice<LoanDto.Response> loans = loanRepository
+                .findBy(spec, query -> query.project(LoanRepository.RESPONSE_GRAPH).slice(pageable))
+                .map(loanMapper::toResponse);
+        if (countMode == CountMode.NONE) {
+            return PageResponse.of(loans);
+        }
+        RowCountCache.Estimate estimate = rowCountCache.lookup(Loan.class, filter, () -> loanRepository.count(spec));
+        return PageResponse.estimated(loans, estimate.total(), estimate.exact());
+    }
+
+    public CursorPageResponse<LoanDto.Response> findAllByCursor(LoanDto.Filter filter, String cursor, Pageable pageable) {
+        Specification<Loan> spec = SpecificationBuilder.fromFilter(filter, Loan.class);
+        return KeysetPagination.fetch(loanRepository, Loan.class, spec, cursor, pageable, loanMapper::toResponse,
+                LoanRepository.RESPONSE_GRAPH);
+    }
+
+    /**
+     * Loans changed since the cursor, soft-deleted ones as tombstones. A loan is listed again when
+     * it is returned, but not when only its user or book changes.
+     */
+    public ChangeFeedResponse<LoanDto.Response> changes(String cursor, int size) {
+        return ChangeFeed.fetch(loanRepository, cursor, size, changeFeedHorizon.current(),
+                loanMapper::toResponse, LoanRepository.RESPONSE_GRAPH);
+    }
+
+    /**
+     * Revision of the loans matching a listing filter, including their users and books.
+     */
+    public Revision revision(LoanDto.Filter filter) {
+        Specification<Loan> spec = SpecificationBuilder.fromFilter(filter, Loan.class);
+        return revisionQuery.of(Loan.class, spec, LoanRepository.RESPONSE_GRAPH);
+    }
+
+    /**
+     * Revision of an active loan, including its user and book. Empty if there is none or, for
+     * members, if it is someone else's, so {@link #findById} reports why.
+     */
+    public Revision revision(Long id, Authentication authentication) {
+        Specification<Loan> spec = SpecificationBuilder.activeById(id);
+        if (!isAdmin(authentication)) {
+            Long requesterId = requesterId(authentication);
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("user").get("id"), requesterId));
+        }
+        return revisionQuery.of(Loan.class, spec, LoanRepository.RESPONSE_GRAPH);
+    }
+
     public LoanDto.Response findById(Long id, Authentication authentication) {
         Loan loan = loanRepository.findActiveById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Loan not found with id: " + id));
 
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-
-        if (!isAdmin) {
-            User requester = userRepository.findActiveByEmail(authentication.getName())
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            if (!loan.getUser().getId().equals(requester.getId())) {
-                throw new AccessDeniedException("You are not authorized to view this loan");
-            }
+        if (!isAdmin(authentication) && !loan.getUser().getId().equals(requesterId(authentication))) {
+            throw new AccessDeniedException("You are not authorized to view this loan");
         }
 
         return loanMapper.toResponse(loan);
     }
 
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    private Long requesterId(Authentication authentication) {
+        return JwtPrincipal.userIdOf(authentication)
+                .orElseGet(() -> userRepository.findActiveByEmail(authentication.getName())
+                        .orElseThrow(() -> new ResourceNotFoundException("User not found"))
+                        .getId());
+    }
+
     public LoanDto.Response save(LoanDto.Request request) {
         User user = userRepository.findActiveById(request.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + request.getUserId()));
@@ -75,12 +149,16 @@ public class LoanService {
         loan.setBook(book);
 
         Loan saved = loanRepository.save(loan);
-        return loanMapper.toResponse(saved);
+        LoanDto.Response response = loanMapper.toResponse(saved);
+
+        loanSummaryService.refresh(user.getId());
+        return response;
     }
 
     public LoanDto.Response update(Long id, LoanDto.Request request) {
         Loan existing = loanRepository.findActiveById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Loan not found with id: " + id));
+        Long previousUserId = existing.getUser().getId();
 
         if (request.getUserId() != null && !request.getUserId().equals(existing.getUser().getId())) {
             User user = userRepository.findActiveById(request.getUserId())
@@ -97,7 +175,13 @@ public class LoanService {
         loanMapper.updateEntity(existing, request);
 
         Loan updated = loanRepository.save(existing);
-        return loanMapper.toResponse(updated);
+        LoanDto.Response response = loanMapper.toResponse(updated);
+
+        loanSummaryService.refresh(updated.getUser().getId());
+        if (!previousUserId.equals(updated.getUser().getId())) {
+            loanSummaryService.refresh(previousUserId);
+        }
+        return response;
     }
 
     public void delete(Long id) {
@@ -105,10 +189,17 @@ public class LoanService {
                 .orElseThrow(() -> new ResourceNotFoundException("Loan not found with id: " + id));
         loan.softDelete();
         loanRepository.save(loan);
+        loanSummaryService.refresh(loan.getUser().getId());
     }
 
     /**
      * Borrow a book for a user with automatic borrowing rules validation.
+     * <p>
+     * The borrower's rules are checked by a guarded update that claims a slot on their loan summary,
+     * then the copy is claimed by a guarded update on the book row, or on one of its slot rows for
+     * sharded books (see {@link BookInventoryService}). Concurrent borrows can therefore
+     * neither exceed the active loan limit nor drive {@code availableCopies} below zero. The individual
+     * rules are only re-evaluated when a claim is rejected, to report which one failed.
      *
      * @param userId The user borrowing the book
      * @param bookId The book to borrow
@@ -118,30 +209,33 @@ public class LoanService {
     public LoanDto.Response borrowBook(Long userId, Long bookId) {
         log.info("Processing borrow request for user {} and book {}", userId, bookId);
 
-        User user = userRepository.findActiveById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-        Book book = bookRepository.findActiveById(bookId)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
-
-        validateBorrowing(user, book);
-
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime dueDate = now.plusDays(libraryProperties.getLoanDurationDays());
 
+        if (!loanSummaryService.claimSlot(userId, dueDate, now)) {
+            throw rejectedBorrow(userId, bookId);
+        }
+        if (!bookInventoryService.claim(bookId, userId, now)) {
+            // Rolls back the slot claimed above
+            throw rejectedCopy(bookId);
+        }
+
         Loan loan = Loan.builder()
-                .user(user)
-                .book(book)
+                .user(userRepository.getReferenceById(userId))
+                .book(bookRepository.getReferenceById(bookId))
                 .borrowedAt(now)
                 .dueDate(dueDate)
                 .build();
 
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
-
         Loan saved = loanRepository.save(loan);
         log.info("Loan created successfully with id {} for user {} and book {}", saved.getId(), userId, bookId);
 
-        return loanMapper.toResponse(saved);
+        LoanDto.Response response = loanMapper.toResponse(saved);
+        // A sharded book's count is a lagging aggregate, the gate only learns when its slots run out
+        if (saved.getBook().getInventorySlots() == 0) {
+            borrowGate.recordAvailability(saved.getBook());
+        }
+        return response;
     }
 
     /**
@@ -161,36 +255,65 @@ public class LoanService {
             throw new BorrowingRuleViolationException("This loan has already been returned");
         }
 
-        loan.setReturnedAt(LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        loan.setReturnedAt(now);
 
-        Book book = loan.getBook();
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookRepository.save(book);
+        Loan updated = loanRepository.saveAndFlush(loan);
+        LoanDto.Response response = loanMapper.toResponse(updated);
 
-        Loan updated = loanRepository.save(loan);
+        bookInventoryService.release(loan.getBook().getId(), loanId, now);
+        borrowGate.invalidate(loan.getBook().getId());
+        loanSummaryService.refresh(loan.getUser().getId());
         log.info("Loan {} returned successfully", loanId);
 
-        return loanMapper.toResponse(updated);
+        return response;
+    }
+
+    /**
+     * Works out why a slot claim was rejected, checking the rules in the order they are reported.
+     * If every rule passes by now, the user's loans changed concurrently; the limit is reported.
+     */
+    private RuntimeException rejectedBorrow(Long userId, Long bookId) {
+        User user = userRepository.findActiveById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        Book book = bookRepository.findActiveById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
+
+        validateBorrowing(user, book);
+
+        log.warn("Loans of user {} changed concurrently while borrowing book {}", userId, bookId);
+        return maxActiveLoansReached();
+    }
+
+    /**
+     * Works out why a copy claim was rejected after the user's slot was claimed.
+     */
+    private RuntimeException rejectedCopy(Long bookId) {
+        Book book = bookRepository.findActiveById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
+
+        log.warn("Book {} has no available copies", bookId);
+        borrowGate.recordExhausted(book);
+        return noAvailableCopies(book);
     }
 
     /**
-     * Validates whether a user can borrow a book.
+     * Validates whether a user can borrow a book, reading the rules from the user's loan summary.
      */
     private void validateBorrowing(User user, Book book) {
         log.debug("Validating borrowing rules for user {} and book {}", user.getId(), book.getId());
 
-        long activeLoans = loanRepository.countActiveLoans(user.getId());
-        if (activeLoans >= libraryProperties.getMaxActiveLoans()) {
+        UserLoanSummary summary = loanSummaryService.find(user.getId())
+                .orElseGet(() -> UserLoanSummary.builder().userId(user.getId()).build());
+
+        if (summary.getActiveLoans() >= libraryProperties.getMaxActiveLoans()) {
             log.warn("User {} has {} active loans, exceeding max of {}",
-                     user.getId(), activeLoans, libraryProperties.getMaxActiveLoans());
-            throw new BorrowingRuleViolationException(
-                String.format("You have reached the maximum number of active loans (%d). " +
-                              "Please return a book before borrowing another.",
-                              libraryProperties.getMaxActiveLoans())
-            );
+                     user.getId(), summary.getActiveLoans(), libraryProperties.getMaxActiveLoans());
+            throw maxActiveLoansReached();
         }
 
-        if (loanRepository.hasOverdueLoans(user.getId(), LocalDateTime.now())) {
+        LocalDateTime earliestDueDate = summary.getEarliestDueDate();
+        if (earliestDueDate != null && earliestDueDate.isBefore(LocalDateTime.now())) {
             log.warn("User {} has overdue loans", user.getId());
             throw new BorrowingRuleViolationException(
                 "You have overdue loans. Please return them before borrowing more books."
@@ -199,11 +322,23 @@ public class LoanService {
 
         if (book.getAvailableCopies() <= 0) {
             log.warn("Book {} has no available copies", book.getId());
-            throw new BorrowingRuleViolationException(
-                String.format("The book '%s' has no available copies at this time.", book.getTitle())
-            );
+            throw noAvailableCopies(book);
         }
 
         log.debug("All borrowing rules passed for user {} and book {}", user.getId(), book.getId());
     }
+
+    private BorrowingRuleViolationException maxActiveLoansReached() {
+        return new BorrowingRuleViolationException(
+            String.format("You have reached the maximum number of active loans (%d). " +
+                          "Please return a book before borrowing another.",
+                          libraryProperties.getMaxActiveLoans())
+        );
+    }
+
+    private BorrowingRuleViolationException noAvailableCopies(Book book) {
+        return new BorrowingRuleViolationException(
+            String.format("The book '%s' has no available copies at this time.", book.getTitle())
+        );
+    }
 }
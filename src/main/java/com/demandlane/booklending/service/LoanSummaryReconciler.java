@@ -0,0 +1,132 @@
+package com.demandlane.booklending.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.demandlane.booklending.config.LibraryProperties;
+import com.demandlane.booklending.entity.UserLoanSummary;
+import com.demandlane.booklending.repository.LoanRepository;
+import com.demandlane.booklending.repository.UserLoanSummaryRepository;
+import com.demandlane.booklending.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Periodically rebuilds {@link UserLoanSummary} rows from {@code loans} and reports any drift.
+ * <p>
+ * Users are walked in id order, one batch per transaction. Each batch locks its summary rows before
+ * aggregating the open loans, so a concurrent borrow either commits before the comparison or waits
+ * for the corrected row. Users without a summary are skipped: their row is built from {@code loans}
+ * on their first borrow. Corrected rows are counted in the {@code library.loan-summary.drift} metric.
+ */
+@Component
+public class LoanSummaryReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanSummaryReconciler.class);
+
+    private final UserRepository userRepository;
+    private final LoanRepository loanRepository;
+    private final UserLoanSummaryRepository summaryRepository;
+    private final LibraryProperties libraryProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter driftCounter;
+
+    public LoanSummaryReconciler(UserRepository userRepository,
+                                 LoanRepository loanRepository,
+                                 UserLoanSummaryRepository summaryRepository,
+                                 LibraryProperties libraryProperties,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.loanRepository = loanRepository;
+        this.summaryRepository = summaryRepository;
+        this.libraryProperties = libraryProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.driftCounter = Counter.builder("library.loan-summary.drift")
+                .description("Loan summaries corrected by the reconciliation job")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${library.summary-reconciliation-interval:3600000}",
+               initialDelayString = "${library.summary-reconciliation-interval:3600000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Reconciles every user's summary.
+     *
+     * @return How many users were checked and how many summaries had drifted
+     */
+    public Report reconcile() {
+        int batchSize = libraryProperties.getSummaryReconciliationBatchSize();
+        long checked = 0;
+        long drifted = 0;
+        Long afterId = 0L;
+
+        while (true) {
+            List<Long> userIds = userRepository.findIdsAfter(afterId, Limit.of(batchSize));
+            if (userIds.isEmpty()) {
+                break;
+            }
+            Long batchDrift = transactionTemplate.execute(status -> reconcileBatch(userIds));
+            drifted += batchDrift == null ? 0 : batchDrift;
+            checked += userIds.size();
+            afterId = userIds.get(userIds.size() - 1);
+        }
+
+        driftCounter.increment(drifted);
+        if (drifted > 0) {
+            log.warn("Loan summary reconciliation corrected {} of {} users", drifted, checked);
+        } else {
+            log.info("Loan summary reconciliation checked {} users, no drift", checked);
+        }
+        return new Report(checked, drifted);
+    }
+
+    private long reconcileBatch(List<Long> userIds) {
+        Map<Long, UserLoanSummary> summaries = summaryRepository.lockAllByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(UserLoanSummary::getUserId, Function.identity()));
+        Map<Long, LoanRepository.OpenLoans> openLoans = loanRepository.summarizeOpenLoans(userIds).stream()
+                .collect(Collectors.toMap(LoanRepository.OpenLoans::getUserId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        long drifted = 0;
+        for (Long userId : userIds) {
+            UserLoanSummary summary = summaries.get(userId);
+            if (summary == null) {
+                continue;
+            }
+
+            LoanRepository.OpenLoans open = openLoans.get(userId);
+            long activeLoans = open == null ? 0 : open.getActiveLoans();
+            LocalDateTime earliestDueDate = open == null ? null : open.getEarliestDueDate();
+
+            if (summary.getActiveLoans() != activeLoans || !Objects.equals(summary.getEarliestDueDate(), earliestDueDate)) {
+                log.warn("Loan summary for user {} drifted: recorded {} active loans due {}, found {} due {}",
+                         userId, summary.getActiveLoans(), summary.getEarliestDueDate(), activeLoans, earliestDueDate);
+                summary.setActiveLoans(activeLoans);
+                summary.setEarliestDueDate(earliestDueDate);
+                summary.setUpdatedAt(now);
+                drifted++;
+            }
+        }
+        return drifted;
+    }
+
+    public record Report(long usersChecked, long summariesCorrected) {
+    }
+}
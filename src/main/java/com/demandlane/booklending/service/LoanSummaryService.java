@@ -0,0 +1,58 @@
+package com.demandlane.booklending.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.demandlane.booklending.config.LibraryProperties;
+import com.demandlane.booklending.entity.UserLoanSummary;
+import com.demandlane.booklending.repository.UserLoanSummaryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps {@link UserLoanSummary} rows in step with {@code loans}. Every method joins the caller's
+ * transaction, so a summary change commits or rolls back together with the loan change it reflects.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class LoanSummaryService {
+
+    private final UserLoanSummaryRepository summaryRepository;
+    private final LibraryProperties libraryProperties;
+
+    /**
+     * Claims a loan slot for a user if the borrowing rules allow it, recording the new due date.
+     * A user without a summary gets one built from their open loans, and the claim is retried once.
+     *
+     * @return true if the slot was claimed, false if the user is inactive, missing, at the
+     *         active loan limit or has overdue loans
+     */
+    public boolean claimSlot(Long userId, LocalDateTime dueDate, LocalDateTime now) {
+        long maxActiveLoans = libraryProperties.getMaxActiveLoans();
+        if (summaryRepository.claimSlot(userId, maxActiveLoans, dueDate, now) == 1) {
+            return true;
+        }
+        if (summaryRepository.initialize(userId, now) == 0) {
+            return false;
+        }
+        return summaryRepository.claimSlot(userId, maxActiveLoans, dueDate, now) == 1;
+    }
+
+    /**
+     * Recomputes a user's summary after one of their loans was returned, edited or deleted.
+     */
+    public void refresh(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (summaryRepository.refresh(userId, now) == 0) {
+            summaryRepository.initialize(userId, now);
+        }
+    }
+
+    public Optional<UserLoanSummary> find(Long userId) {
+        return summaryRepository.findById(userId);
+    }
+}
@@ -0,0 +1,86 @@
+package com.demandlane.booklending.service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cached row counts for {@link com.demandlane.booklending.dto.CountMode#ESTIMATED} listings,
+ * keyed by entity class and filter value (the filter DTOs have value equality).
+ * <p>
+ * The first lookup for a key counts synchronously and is exact. Later lookups return the
+ * cached count immediately; once it is older than the refresh interval, the next lookup
+ * triggers a recount in the background. Entries not read within the expiry are dropped.
+ * Hit, miss and load counts are published as {@code cache.*} metrics with {@code cache=pagination.row-counts}.
+ */
+@Component
+public class RowCountCache {
+
+    private static final String CACHE_NAME = "pagination.row-counts";
+
+    private final LoadingCache<Key, Long> cache;
+
+    public RowCountCache(MeterRegistry meterRegistry,
+                         @Value("${pagination.count-cache.refresh-after:30000}") long refreshAfterMillis,
+                         @Value("${pagination.count-cache.expire-after:600000}") long expireAfterMillis,
+                         @Value("${pagination.count-cache.max-size:1000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(Duration.ofMillis(refreshAfterMillis))
+                .expireAfterAccess(Duration.ofMillis(expireAfterMillis))
+                .recordStats()
+                .build(key -> key.counter().getAsLong());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the row count for a filtered listing.
+     *
+     * @param entityClass The entity being listed
+     * @param filter The filter DTO, or null for an unfiltered listing
+     * @param counter Runs the exact count query; used on a miss and for background refreshes
+     * @return The count, and whether it was computed for this request
+     */
+    public Estimate lookup(Class<?> entityClass, Object filter, LongSupplier counter) {
+        Key key = new Key(entityClass, filter, counter);
+        Long cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return new Estimate(cached, false);
+        }
+        return new Estimate(cache.get(key), true);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public record Estimate(long total, boolean exact) {
+    }
+
+    /**
+     * Cache key. The counter is carried along for refreshes but is not part of the identity.
+     */
+    private record Key(Class<?> entityClass, Object filter, LongSupplier counter) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other
+                    && entityClass.equals(other.entityClass)
+                    && Objects.equals(filter, other.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityClass, filter);
+        }
+    }
+}
@@ -2,14 +2,23 @@ package com.demandlane.booklending.service;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
 import com.demandlane.booklending.dto.UserDto;
+import com.demandlane.booklending.dto.PageResponse;
+import com.demandlane.booklending.dto.Revision;
 import com.demandlane.booklending.entity.User;
 import com.demandlane.booklending.exception.ResourceNotFoundException;
 import com.demandlane.booklending.mapper.UserMapper;
+import com.demandlane.booklending.repository.RevisionQuery;
 import com.demandlane.booklending.repository.UserRepository;
+import com.demandlane.booklending.security.DeletedUserRegistry;
+import com.demandlane.booklending.security.TokenRevocationStore;
+import com.demandlane.booklending.specification.KeysetPagination;
 import com.demandlane.booklending.specification.SpecificationBuilder;
 
 import lombok.RequiredArgsConstructor;
@@ -20,6 +29,10 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final DeletedUserRegistry deletedUserRegistry;
+    private final RowCountCache rowCountCache;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final RevisionQuery revisionQuery;
 
     public Page<UserDto.Response> findAll(UserDto.Filter filter, Pageable pageable) {
         Specification<User> spec = SpecificationBuilder.fromFilter(filter, User.class);
@@ -27,6 +40,38 @@ public class UserService {
         return users.map(userMapper::toResponse);
     }
 
+    public PageResponse<UserDto.Response> findAll(UserDto.Filter filter, Pageable pageable, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return PageResponse.of(findAll(filter, pageable));
+        }
+        Specification<User> spec = SpecificationBuilder.fromFilter(filter, User.class);
+        Slice<UserDto.Response> users = userRepository.findBy(spec, query -> query.slice(pageable)).map(userMapper::toResponse);
+        if (countMode == CountMode.NONE) {
+            return PageResponse.of(users);
+        }
+        RowCountCache.Estimate estimate = rowCountCache.lookup(User.class, filter, () -> userRepository.count(spec));
+        return PageResponse.estimated(users, estimate.total(), estimate.exact());
+    }
+
+    public CursorPageResponse<UserDto.Response> findAllByCursor(UserDto.Filter filter, String cursor, Pageable pageable) {
+        Specification<User> spec = SpecificationBuilder.fromFilter(filter, User.class);
+        return KeysetPagination.fetch(userRepository, User.class, spec, cursor, pageable, userMapper::toResponse);
+    }
+
+    /**
+     * Revision of the users matching a listing filter.
+     */
+    public Revision revision(UserDto.Filter filter) {
+        return revisionQuery.of(User.class, SpecificationBuilder.fromFilter(filter, User.class));
+    }
+
+    /**
+     * Revision of an active user; empty if there is none.
+     */
+    public Revision revision(Long id) {
+        return revisionQuery.of(User.class, SpecificationBuilder.activeById(id));
+    }
+
     public UserDto.Response findById(Long id) {
         User user = userRepository.findActiveById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
@@ -52,6 +97,18 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         user.softDelete();
         userRepository.save(user);
+        deletedUserRegistry.markDeleted(id);
+        tokenRevocationStore.revokeAllForUser(id);
+    }
+
+    /**
+     * Revokes every token issued to the user so far, signing them out of all sessions.
+     */
+    public void revokeTokens(Long id) {
+        if (userRepository.findActiveById(id).isEmpty()) {
+            throw new ResourceNotFoundException("User not found with id: " + id);
+        }
+        tokenRevocationStore.revokeAllForUser(id);
     }
 
     public UserDto.Response findByEmail(String email) {
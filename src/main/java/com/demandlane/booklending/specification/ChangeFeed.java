@@ -0,0 +1,83 @@
+package com.demandlane.booklending.specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.query.FluentQuery;
+
+import com.demandlane.booklending.dto.ChangeFeedResponse;
+import com.demandlane.booklending.entity.BaseEntity;
+import com.demandlane.booklending.exception.InvalidCursorException;
+
+public class ChangeFeed {
+
+    /**
+     * Largest batch a single poll returns.
+     */
+    public static final int MAX_SIZE = 1000;
+
+    private static final String ID = "id";
+    private static final String CHANGE_XID = "changeXid";
+    private static final Sort.Order ORDER = Sort.Order.asc(CHANGE_XID);
+
+    /**
+     * Fetches the next batch of a change feed: the rows inserted, updated or soft-deleted after the
+     * cursor, oldest change first, each at most once and in its current state.
+     * <p>
+     * The feed is a keyset walk over {@code (changeXid, id)}, the id of the transaction that last
+     * wrote each row, with the same cursor encoding as {@link KeysetPagination}. Only rows written by
+     * transactions below {@code horizon} are listed: those have all finished, and a transaction that
+     * commits later is stamped at or above it, so it never lands behind a cursor already handed out.
+     *
+     * @param repository The repository to query
+     * @param cursor     The {@code nextCursor} of the previous batch, or null to start from the first row
+     * @param size       Batch size, clamped to 1..{@link #MAX_SIZE}
+     * @param horizon    Lowest transaction id that may still commit, from {@code ChangeFeedHorizon}
+     * @param mapper     Maps active rows to response objects; soft-deleted rows become tombstones
+     * @param fetchPaths Association paths to fetch in the same query, so the mapper does not lazy-load them
+     * @throws InvalidCursorException if the cursor is malformed or was not issued by a change feed
+     */
+    public static <T extends BaseEntity, R> ChangeFeedResponse<R> fetch(JpaSpecificationExecutor<T> repository,
+                                                                        String cursor,
+                                                                        int size,
+                                                                        long horizon,
+                                                                        Function<T, R> mapper,
+                                                                        Collection<String> fetchPaths) {
+        int limit = Math.clamp(size, 1, MAX_SIZE);
+        Specification<T> seek = (root, query, cb) -> cb.lessThan(root.<Long>get(CHANGE_XID), horizon);
+        if (cursor != null && !cursor.isBlank()) {
+            seek = seek.and(KeysetPagination.after(KeysetPagination.Cursor.decode(cursor, ORDER)));
+        }
+
+        Sort sort = Sort.by(ORDER, Sort.Order.asc(ID));
+        List<T> rows = repository.findBy(seek, q -> {
+            FluentQuery.FetchableFluentQuery<T> query = q.sortBy(sort).limit(limit + 1);
+            return fetchPaths.isEmpty() ? query.all() : query.project(fetchPaths).all();
+        });
+
+        boolean hasMore = rows.size() > limit;
+        List<T> batch = hasMore ? rows.subList(0, limit) : rows;
+
+        List<R> upserts = new ArrayList<>();
+        List<ChangeFeedResponse.Tombstone> tombstones = new ArrayList<>();
+        for (T row : batch) {
+            if (row.isDeleted()) {
+                tombstones.add(new ChangeFeedResponse.Tombstone(row.getId(), row.getDeletedAt()));
+            } else {
+                upserts.add(mapper.apply(row));
+            }
+        }
+
+        return ChangeFeedResponse.<R>builder()
+                .upserts(upserts)
+                .tombstones(tombstones)
+                .hasMore(hasMore)
+                .nextCursor(batch.isEmpty() ? cursor : KeysetPagination.Cursor.of(batch.getLast(), ORDER).encode())
+                .build();
+    }
+}
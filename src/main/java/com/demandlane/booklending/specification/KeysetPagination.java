@@ -0,0 +1,189 @@
+package com.demandlane.booklending.specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.query.FluentQuery;
+
+import com.demandlane.booklending.dto.CursorPageResponse;
+import com.demandlane.booklending.entity.BaseEntity;
+import com.demandlane.booklending.exception.InvalidCursorException;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+public class KeysetPagination {
+
+    private static final String ID = "id";
+    private static final String UNSUPPORTED_SORT = "Sorting by this property is not supported with cursors";
+
+    /**
+     * Fetches one page of a keyset (seek) listing without an OFFSET or a count query.
+     * <p>
+     * The first order of {@code pageable}'s sort is the sort key and {@code id} breaks ties, so the
+     * cursor is the (sort key, id) pair of the last row. The page number of {@code pageable} is ignored.
+     * Null sort values are treated as higher than any value, matching PostgreSQL's default ordering.
+     *
+     * @param repository  The repository to query
+     * @param entityClass The entity the repository holds, whose sort property is checked up front
+     * @param spec       The filter specification, e.g. from {@link SpecificationBuilder#fromFilter}
+     * @param cursor     The {@code nextCursor} of the previous page, or null for the first page
+     * @param pageable   Page size and sort
+     * @param mapper     Maps entities to response objects
+     * @throws InvalidCursorException if the sort property cannot be used as a cursor, or the cursor is
+     *                                malformed or was issued for another sort
+     */
+    public static <T extends BaseEntity, R> CursorPageResponse<R> fetch(JpaSpecificationExecutor<T> repository,
+                                                                      Class<T> entityClass,
+                                                                      Specification<T> spec,
+                                                                      String cursor,
+                                                                      Pageable pageable,
+                                                                      Function<T, R> mapper) {
+        return fetch(repository, entityClass, spec, cursor, pageable, mapper, List.of());
+    }
+
+    /**
+     * Same as {@link #fetch(JpaSpecificationExecutor, Class, Specification, String, Pageable, Function)}, but also
+     * fetches the given association paths in the page query so the mapper does not lazy-load them per row.
+     */
+    public static <T extends BaseEntity, R> CursorPageResponse<R> fetch(JpaSpecificationExecutor<T> repository,
+                                                                      Class<T> entityClass,
+                                                                      Specification<T> spec,
+                                                                      String cursor,
+                                                                      Pageable pageable,
+                                                                      Function<T, R> mapper,
+                                                                      Collection<String> fetchPaths) {
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc(ID));
+        if (order.getProperty().contains(".")) {
+            throw new InvalidCursorException("Sorting by nested properties is not supported with cursors");
+        }
+        // Checked before the first page, which has no cursor to convert yet
+        if (!isSupported(BeanUtils.findPropertyType(order.getProperty(), entityClass))) {
+            throw new InvalidCursorException(UNSUPPORTED_SORT);
+        }
+        int size = pageable.getPageSize();
+
+        Sort sort = Sort.by(order.getDirection(), order.getProperty());
+        if (!ID.equals(order.getProperty())) {
+            sort = sort.and(Sort.by(order.getDirection(), ID));
+        }
+
+        Specification<T> seek = spec;
+        if (cursor != null && !cursor.isBlank()) {
+            seek = seek.and(after(Cursor.decode(cursor, order)));
+        }
+
+        final Sort keysetSort = sort;
+        List<T> rows = repository.findBy(seek, q -> {
+            FluentQuery.FetchableFluentQuery<T> query = q.sortBy(keysetSort).limit(size + 1);
+            return fetchPaths.isEmpty() ? query.all() : query.project(fetchPaths).all();
+        });
+
+        boolean hasNext = rows.size() > size;
+        List<T> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? Cursor.of(pageRows.get(size - 1), order).encode() : null;
+
+        return CursorPageResponse.<R>builder()
+                .data(pageRows.stream().map(mapper).toList())
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static <T> Specification<T> after(Cursor cursor) {
+        return (root, query, cb) -> {
+            boolean asc = cursor.direction().isAscending();
+            Path<Long> id = root.get(ID);
+            Predicate idAfter = asc ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+            if (ID.equals(cursor.property())) {
+                return idAfter;
+            }
+
+            Path<?> key = root.get(cursor.property());
+            Comparable value = cursor.value() == null ? null : convert(cursor.value(), key.getJavaType());
+            Expression<Comparable> column = (Expression<Comparable>) key;
+
+            // Nulls sort high: last in ascending order, first in descending order
+            if (value == null) {
+                Predicate nullTie = cb.and(cb.isNull(key), idAfter);
+                return asc ? nullTie : cb.or(nullTie, cb.isNotNull(key));
+            }
+            Predicate beyond = asc ? cb.greaterThan(column, value) : cb.lessThan(column, value);
+            Predicate tie = cb.and(cb.equal(key, value), idAfter);
+            return asc ? cb.or(beyond, tie, cb.isNull(key)) : cb.or(beyond, tie);
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Comparable<?> convert(String value, Class<?> type) {
+        try {
+            if (String.class.equals(type)) return value;
+            if (Long.class.equals(type) || long.class.equals(type)) return Long.parseLong(value);
+            if (Integer.class.equals(type) || int.class.equals(type)) return Integer.parseInt(value);
+            if (LocalDateTime.class.equals(type)) return LocalDateTime.parse(value);
+            if (LocalDate.class.equals(type)) return LocalDate.parse(value);
+            if (type.isEnum()) return Enum.valueOf((Class<Enum>) type, value);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+        throw new InvalidCursorException(UNSUPPORTED_SORT);
+    }
+
+    /**
+     * Whether {@link #convert} can read a cursor value of this type back.
+     */
+    private static boolean isSupported(Class<?> type) {
+        return String.class.equals(type) || Long.class.equals(type) || long.class.equals(type)
+                || Integer.class.equals(type) || int.class.equals(type) || LocalDateTime.class.equals(type)
+                || LocalDate.class.equals(type) || type.isEnum();
+    }
+
+    /**
+     * Position after the last row of a page. Encoded as URL-safe Base64 so clients treat it as opaque.
+     */
+    record Cursor(String property, Sort.Direction direction, Long id, String value) {
+
+        static Cursor of(BaseEntity last, Sort.Order order) {
+            Object value = ID.equals(order.getProperty())
+                    ? null
+                    : new BeanWrapperImpl(last).getPropertyValue(order.getProperty());
+            String encoded = value == null ? null : value instanceof Enum<?> e ? e.name() : value.toString();
+            return new Cursor(order.getProperty(), order.getDirection(), last.getId(), encoded);
+        }
+
+        String encode() {
+            String raw = property + "\n" + direction + "\n" + id + "\n" + (value == null ? "" : "=" + value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor, Sort.Order order) {
+            Cursor decoded;
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\n", 4);
+                String value = parts[3].isEmpty() ? null : parts[3].substring(1);
+                decoded = new Cursor(parts[0], Sort.Direction.valueOf(parts[1]), Long.parseLong(parts[2]), value);
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException("Invalid cursor", e);
+            }
+            if (!decoded.property().equals(order.getProperty()) || decoded.direction() != order.getDirection()) {
+                throw new InvalidCursorException("Cursor does not match the requested sort");
+            }
+            return decoded;
+        }
+    }
+}
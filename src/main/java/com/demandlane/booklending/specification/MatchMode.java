@@ -0,0 +1,33 @@
+package com.demandlane.booklending.specification;
+
+import java.util.Locale;
+
+/**
+ * How {@link SpecificationBuilder} matches String filter values, selected by a filter's {@code match} field.
+ * All modes are case-insensitive and compare against {@code lower(column)}, which is what the
+ * PostgreSQL search indexes are built on.
+ * <ul>
+ *   <li>{@code CONTAINS} - {@code LIKE '%value%'}, served by a trigram GIN index (default)</li>
+ *   <li>{@code PREFIX} - {@code LIKE 'value%'}, served by a btree {@code text_pattern_ops} index</li>
+ *   <li>{@code EXACT} - {@code = 'value'}, served by the same btree index</li>
+ * </ul>
+ */
+public enum MatchMode {
+    CONTAINS,
+    PREFIX,
+    EXACT;
+
+    /**
+     * Parses a match mode case-insensitively, falling back to {@code CONTAINS} for null or unknown values.
+     */
+    public static MatchMode from(Object value) {
+        if (value == null) {
+            return CONTAINS;
+        }
+        try {
+            return valueOf(value.toString().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ignored) {
+            return CONTAINS;
+        }
+    }
+}
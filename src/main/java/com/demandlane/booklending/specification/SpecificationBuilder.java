@@ -1,22 +1,50 @@
 package com.demandlane.booklending.specification;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.data.jpa.domain.Specification;
 
 public class SpecificationBuilder {
 
+    /**
+     * Name of the optional filter field that selects the {@link MatchMode} for String fields.
+     */
+    static final String MATCH_FIELD = "match";
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    /**
+     * Compiled plans per filter class, then per entity class.
+     * ClassValue keeps the lookup lock-free and lets the plans be collected with their classes.
+     */
+    private static final ClassValue<Map<Class<?>, FilterPlan>> PLANS = new ClassValue<>() {
+        @Override
+        protected Map<Class<?>, FilterPlan> computeValue(Class<?> filterClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     /**
      * Builds a JPA Specification from a filter object (e.g., UserDto.Filter, BookDto.Filter).
-     * Uses reflection to extract non-null field values from the filter and build specifications.
+     * Reflection only runs the first time a (filter class, entity class) pair is seen: it compiles
+     * a plan of field getters and predicate kinds, which later requests reuse to read non-null values.
      * <p>
-     * String fields → case-insensitive LIKE %value%
+     * String fields → case-insensitive match per the filter's {@code match} field
+     *                  (CONTAINS: LIKE %value%, PREFIX: LIKE value%, EXACT: equality); wildcards in the value are escaped
      * Enum fields   → exact match (value converted to uppercase)
      * Numeric fields → exact match
      * <p>
      * The {@code deletedAt IS NULL} soft-delete guard is always included.
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public static <T> Specification<T> fromFilter(Object filter, Class<T> entityClass) {
         // Always filter out soft-deleted records
         Specification<T> spec = (root, query, cb) -> cb.isNull(root.get("deletedAt"));
@@ -25,65 +53,177 @@ public class SpecificationBuilder {
             return spec;
         }
 
-        Field[] filterFields = filter.getClass().getDeclaredFields();
-        for (Field filterField : filterFields) {
+        FilterPlan plan = planFor(filter.getClass(), entityClass);
+        MatchMode matchMode = plan.matchMode(filter);
+
+        for (FieldPlan field : plan.fields()) {
+            Object value = field.read(filter);
+
+            // Skip null or blank values
+            if (value == null) continue;
+            if (value instanceof String && ((String) value).isBlank()) continue;
+
+            Specification<T> predicate = field.toSpecification(value, matchMode);
+            if (predicate != null) {
+                spec = spec.and(predicate);
+            }
+        }
+
+        return spec;
+    }
+
+    /**
+     * Matches the row with the given id unless it is soft-deleted.
+     */
+    public static <T> Specification<T> activeById(Long id) {
+        return (root, query, cb) -> cb.and(cb.equal(root.get("id"), id), cb.isNull(root.get("deletedAt")));
+    }
+
+    static FilterPlan planFor(Class<?> filterClass, Class<?> entityClass) {
+        return PLANS.get(filterClass).computeIfAbsent(entityClass, e -> FilterPlan.compile(filterClass, e));
+    }
+
+    enum Kind {
+        RELATIONSHIP_ID,
+        STRING_LIKE,
+        ENUM,
+        LONG
+    }
+
+    /**
+     * @param matchGetter Getter of the filter's {@code match} field, or null if the filter has none
+     */
+    record FilterPlan(List<FieldPlan> fields, MethodHandle matchGetter) {
+
+        MatchMode matchMode(Object filter) {
+            if (matchGetter == null) {
+                return MatchMode.CONTAINS;
+            }
             try {
-                filterField.setAccessible(true);
-                Object value = filterField.get(filter);
+                return MatchMode.from((Object) matchGetter.invokeExact(filter));
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot read filter field " + MATCH_FIELD, e);
+            }
+        }
 
-                // Skip null or blank values
-                if (value == null) continue;
-                if (value instanceof String && ((String) value).isBlank()) continue;
+        static FilterPlan compile(Class<?> filterClass, Class<?> entityClass) {
+            List<FieldPlan> fields = new ArrayList<>();
+            MethodHandle matchGetter = null;
+            for (Field filterField : filterClass.getDeclaredFields()) {
+                if (Modifier.isStatic(filterField.getModifiers())) continue;
 
                 final String fieldName = filterField.getName();
 
+                if (MATCH_FIELD.equals(fieldName) && findField(entityClass, fieldName) == null) {
+                    matchGetter = getter(filterClass, filterField);
+                    continue;
+                }
+
                 // Handle relationship ID fields (e.g., userId -> user.id, bookId -> book.id)
-                final String actualFieldName;
-                final boolean isRelationshipId;
+                String actualFieldName = fieldName;
+                boolean isRelationshipId = false;
                 if (fieldName.endsWith("Id")) {
                     String relationshipName = fieldName.substring(0, fieldName.length() - 2);
-                    Field relationshipField = findField(entityClass, relationshipName);
-                    if (relationshipField != null) {
+                    if (findField(entityClass, relationshipName) != null) {
                         actualFieldName = relationshipName;
                         isRelationshipId = true;
-                    } else {
-                        actualFieldName = fieldName;
-                        isRelationshipId = false;
                     }
-                } else {
-                    actualFieldName = fieldName;
-                    isRelationshipId = false;
                 }
 
                 Field entityField = findField(entityClass, actualFieldName);
                 if (entityField == null) continue;
 
                 Class<?> entityFieldType = entityField.getType();
-
+                Kind kind;
                 if (isRelationshipId) {
-                    final Long longValue = value instanceof Long ? (Long) value : Long.parseLong(value.toString());
-                    spec = spec.and((root, query, cb) -> cb.equal(root.get(actualFieldName).get("id"), longValue));
+                    kind = Kind.RELATIONSHIP_ID;
                 } else if (String.class.equals(entityFieldType)) {
-                    final String stringValue = (String) value;
-                    spec = spec.and((root, query, cb) ->
-                            cb.like(cb.lower(root.get(actualFieldName)), "%" + stringValue.toLowerCase() + "%"));
+                    kind = Kind.STRING_LIKE;
                 } else if (entityFieldType.isEnum()) {
+                    kind = Kind.ENUM;
+                } else if (Long.class.equals(entityFieldType) || long.class.equals(entityFieldType)) {
+                    kind = Kind.LONG;
+                } else {
+                    continue;
+                }
+
+                fields.add(new FieldPlan(getter(filterClass, filterField), kind, actualFieldName, entityFieldType));
+            }
+            return new FilterPlan(List.copyOf(fields), matchGetter);
+        }
+
+        private static MethodHandle getter(Class<?> filterClass, Field field) {
+            try {
+                return MethodHandles.privateLookupIn(filterClass, MethodHandles.lookup())
+                        .unreflectGetter(field)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access filter field " + field, e);
+            }
+        }
+    }
+
+    record FieldPlan(MethodHandle getter, Kind kind, String path, Class<?> entityFieldType) {
+
+        Object read(Object filter) {
+            try {
+                return (Object) getter.invokeExact(filter);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot read filter field " + path, e);
+            }
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        <T> Specification<T> toSpecification(Object value, MatchMode matchMode) {
+            switch (kind) {
+                case RELATIONSHIP_ID -> {
+                    final Long longValue = value instanceof Long ? (Long) value : Long.parseLong(value.toString());
+                    return (root, query, cb) -> cb.equal(root.get(path).get("id"), longValue);
+                }
+                case STRING_LIKE -> {
+                    final String lowered = ((String) value).toLowerCase(Locale.ROOT);
+                    return switch (matchMode) {
+                        case EXACT -> (root, query, cb) -> cb.equal(cb.lower(root.get(path)), lowered);
+                        case PREFIX -> {
+                            final String pattern = escapeLike(lowered) + "%";
+                            yield (root, query, cb) -> cb.like(cb.lower(root.get(path)), pattern, LIKE_ESCAPE);
+                        }
+                        case CONTAINS -> {
+                            final String pattern = "%" + escapeLike(lowered) + "%";
+                            yield (root, query, cb) -> cb.like(cb.lower(root.get(path)), pattern, LIKE_ESCAPE);
+                        }
+                    };
+                }
+                case ENUM -> {
                     try {
                         final Object enumValue = Enum.valueOf((Class<Enum>) entityFieldType, value.toString().toUpperCase());
-                        spec = spec.and((root, query, cb) -> cb.equal(root.get(actualFieldName), enumValue));
+                        return (root, query, cb) -> cb.equal(root.get(path), enumValue);
                     } catch (IllegalArgumentException ignored) {
                         // unknown enum constant – skip silently
+                        return null;
                     }
-                } else if (Long.class.equals(entityFieldType) || long.class.equals(entityFieldType)) {
+                }
+                case LONG -> {
                     final Long longValue = value instanceof Long ? (Long) value : Long.parseLong(value.toString());
-                    spec = spec.and((root, query, cb) -> cb.equal(root.get(actualFieldName), longValue));
+                    return (root, query, cb) -> cb.equal(root.get(path), longValue);
+                }
+                default -> {
+                    return null;
                 }
-            } catch (IllegalAccessException e) {
-                // Skip fields that cannot be accessed
             }
         }
+    }
 
-        return spec;
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
     }
 
     private static Field findField(Class<?> clazz, String fieldName) {
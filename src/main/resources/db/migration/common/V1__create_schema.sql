@@ -0,0 +1,42 @@
+-- Baseline schema for users, books and loans, matching the JPA mappings.
+-- Databases created earlier by hibernate.ddl-auto are baselined at this version and skip it.
+
+CREATE TABLE users (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6) NOT NULL,
+    deleted_at  TIMESTAMP(6),
+    name        VARCHAR(255),
+    email       VARCHAR(255) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    role        VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT ck_users_role CHECK (role IN ('ADMIN', 'MEMBER'))
+);
+
+CREATE TABLE books (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at        TIMESTAMP(6) NOT NULL,
+    updated_at        TIMESTAMP(6) NOT NULL,
+    deleted_at        TIMESTAMP(6),
+    title             VARCHAR(255),
+    author            VARCHAR(255),
+    isbn              VARCHAR(255) NOT NULL,
+    total_copies      BIGINT,
+    available_copies  BIGINT,
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+);
+
+CREATE TABLE loans (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at   TIMESTAMP(6) NOT NULL,
+    updated_at   TIMESTAMP(6) NOT NULL,
+    deleted_at   TIMESTAMP(6),
+    user_id      BIGINT NOT NULL,
+    book_id      BIGINT NOT NULL,
+    borrowed_at  TIMESTAMP(6) NOT NULL,
+    due_date     TIMESTAMP(6) NOT NULL,
+    returned_at  TIMESTAMP(6),
+    CONSTRAINT fk_loans_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_loans_book FOREIGN KEY (book_id) REFERENCES books (id)
+);
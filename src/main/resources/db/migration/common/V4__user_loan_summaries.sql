@@ -0,0 +1,16 @@
+-- Per-user open loan summary used by the borrowing rules (see UserLoanSummary).
+-- Backfilled for existing users; users created later get their row on their first borrow.
+
+CREATE TABLE user_loan_summaries (
+    user_id            BIGINT PRIMARY KEY,
+    active_loans       BIGINT NOT NULL,
+    earliest_due_date  TIMESTAMP(6),
+    updated_at         TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_user_loan_summaries_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+INSERT INTO user_loan_summaries (user_id, active_loans, earliest_due_date, updated_at)
+SELECT u.id, COUNT(l.id), MIN(l.due_date), CURRENT_TIMESTAMP
+FROM users u
+LEFT JOIN loans l ON l.user_id = u.id AND l.returned_at IS NULL AND l.deleted_at IS NULL
+GROUP BY u.id;
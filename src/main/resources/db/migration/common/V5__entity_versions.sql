@@ -0,0 +1,5 @@
+-- Optimistic lock versions for BaseEntity (@Version)
+
+ALTER TABLE users ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE books ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE loans ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
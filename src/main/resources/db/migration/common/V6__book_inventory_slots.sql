@@ -0,0 +1,14 @@
+-- Sharded inventory for books with many copies (see BookInventorySlot).
+-- inventory_slots = 0 keeps the copies on the books row; otherwise they are split across that many slot rows
+-- and books.available_copies is a periodically refreshed aggregate.
+
+ALTER TABLE books ADD COLUMN inventory_slots INTEGER DEFAULT 0 NOT NULL;
+
+CREATE TABLE book_inventory_slots (
+    book_id           BIGINT NOT NULL,
+    slot              INTEGER NOT NULL,
+    available_copies  BIGINT NOT NULL,
+    CONSTRAINT pk_book_inventory_slots PRIMARY KEY (book_id, slot),
+    CONSTRAINT fk_book_inventory_slots_book FOREIGN KEY (book_id) REFERENCES books (id),
+    CONSTRAINT ck_book_inventory_slots_available CHECK (available_copies >= 0)
+);
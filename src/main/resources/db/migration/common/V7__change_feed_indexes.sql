@@ -0,0 +1,5 @@
+-- Change feeds (GET /api/v1/books/changes, /api/v1/loans/changes) seek by (updated_at, id) over all rows,
+-- soft-deleted ones included, so a poll reads only the index range past its cursor however large the table.
+
+CREATE INDEX IF NOT EXISTS idx_books_updated_at_id ON books (updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_loans_updated_at_id ON loans (updated_at, id);
@@ -0,0 +1,4 @@
+-- The periodic refresh of sharded books' available copies looks for books with inventory_slots > 0, which are
+-- few or none; the index lets it find them without scanning the catalog.
+
+CREATE INDEX IF NOT EXISTS idx_books_inventory_slots ON books (inventory_slots);
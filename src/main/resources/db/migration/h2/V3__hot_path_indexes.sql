@@ -0,0 +1,6 @@
+-- H2 counterpart of postgresql/V3__hot_path_indexes.sql. H2 has no partial indexes,
+-- so the same columns are indexed over all rows.
+
+CREATE INDEX IF NOT EXISTS idx_loans_user_due_open ON loans (user_id, due_date);
+CREATE INDEX IF NOT EXISTS idx_loans_user_active ON loans (user_id, id);
+CREATE INDEX IF NOT EXISTS idx_loans_book_active ON loans (book_id);
@@ -0,0 +1,18 @@
+-- H2 counterpart of postgresql/V9__change_feed_commit_order.sql. H2 has no transaction ids to stamp, so
+-- rows take the next value of a sequence on every write instead, and the horizon lets every row through.
+-- That is only sound without concurrent writers, which is all the test suite needs.
+
+CREATE SEQUENCE IF NOT EXISTS change_xid_seq;
+
+ALTER TABLE books ADD COLUMN change_xid BIGINT DEFAULT NEXT VALUE FOR change_xid_seq
+    ON UPDATE NEXT VALUE FOR change_xid_seq NOT NULL;
+ALTER TABLE loans ADD COLUMN change_xid BIGINT DEFAULT NEXT VALUE FOR change_xid_seq
+    ON UPDATE NEXT VALUE FOR change_xid_seq NOT NULL;
+
+CREATE VIEW change_feed_horizon AS
+    SELECT CAST(9223372036854775807 AS BIGINT) AS horizon;
+
+CREATE INDEX IF NOT EXISTS idx_books_change_xid_id ON books (change_xid, id);
+CREATE INDEX IF NOT EXISTS idx_loans_change_xid_id ON loans (change_xid, id);
+DROP INDEX IF EXISTS idx_books_updated_at_id;
+DROP INDEX IF EXISTS idx_loans_updated_at_id;
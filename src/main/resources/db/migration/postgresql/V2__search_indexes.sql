@@ -0,0 +1,19 @@
+-- Text search indexes for the String filters built by SpecificationBuilder (see MatchMode).
+-- Every predicate compares lower(column) and includes deleted_at IS NULL, so the indexes are
+-- expression indexes on lower(column), partial on active rows.
+-- Statements are idempotent so databases that already ran the earlier init script migrate cleanly.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- CONTAINS: lower(column) LIKE '%value%'
+CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING gin (lower(title) gin_trgm_ops) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_books_author_trgm ON books USING gin (lower(author) gin_trgm_ops) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING gin (lower(name) gin_trgm_ops) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops) WHERE deleted_at IS NULL;
+
+-- PREFIX and EXACT: lower(column) LIKE 'value%' and lower(column) = 'value'
+-- text_pattern_ops lets LIKE prefixes use the btree regardless of the database collation.
+CREATE INDEX IF NOT EXISTS idx_books_title_lower ON books (lower(title) text_pattern_ops) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_books_author_lower ON books (lower(author) text_pattern_ops) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_users_name_lower ON users (lower(name) text_pattern_ops) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_users_email_lower ON users (lower(email) text_pattern_ops) WHERE deleted_at IS NULL;
@@ -0,0 +1,16 @@
+-- Indexes for the loan access paths that run on every borrow and listing.
+-- Every repository query filters deleted_at IS NULL, so the indexes are partial on active rows.
+
+-- countActiveLoans, hasOverdueLoans and the guarded claimCopy update:
+--   WHERE user_id = ? AND returned_at IS NULL [AND due_date < ?] AND deleted_at IS NULL
+-- The user_id prefix serves the count; due_date turns the overdue check into a range probe.
+CREATE INDEX IF NOT EXISTS idx_loans_user_due_open ON loans (user_id, due_date)
+    WHERE returned_at IS NULL AND deleted_at IS NULL;
+
+-- /loans/self and the userId filter: WHERE user_id = ? AND deleted_at IS NULL ORDER BY id
+CREATE INDEX IF NOT EXISTS idx_loans_user_active ON loans (user_id, id)
+    WHERE deleted_at IS NULL;
+
+-- bookId filter, and the foreign key (PostgreSQL does not index referencing columns)
+CREATE INDEX IF NOT EXISTS idx_loans_book_active ON loans (book_id)
+    WHERE deleted_at IS NULL;
@@ -0,0 +1,30 @@
+-- Change feeds are ordered by the transaction that last wrote each row instead of by updated_at.
+-- updated_at is stamped before commit, so a slow commit could land behind a cursor that had moved on.
+-- Every write, JPA or native, is stamped with its transaction id by trigger, and a feed only lists rows
+-- written by transactions below the xmin of the current snapshot: those are all finished, and any
+-- transaction still to commit has a larger id, so it sorts after every cursor handed out so far.
+
+ALTER TABLE books ADD COLUMN change_xid BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE loans ADD COLUMN change_xid BIGINT DEFAULT 0 NOT NULL;
+
+CREATE OR REPLACE FUNCTION stamp_change_xid() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.change_xid := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END
+$$;
+
+CREATE TRIGGER trg_books_change_xid BEFORE INSERT OR UPDATE ON books
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_xid();
+CREATE TRIGGER trg_loans_change_xid BEFORE INSERT OR UPDATE ON loans
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_xid();
+
+-- Oldest transaction that may still be running; read by ChangeFeedHorizon
+CREATE VIEW change_feed_horizon AS
+    SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint AS horizon;
+
+CREATE INDEX IF NOT EXISTS idx_books_change_xid_id ON books (change_xid, id);
+CREATE INDEX IF NOT EXISTS idx_loans_change_xid_id ON loans (change_xid, id);
+-- Only the feeds walked these
+DROP INDEX IF EXISTS idx_books_updated_at_id;
+DROP INDEX IF EXISTS idx_loans_updated_at_id;
@@ -0,0 +1,119 @@
+package com.demandlane.booklending.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.demandlane.booklending.exception.RequestQueueTimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestConcurrencyLimiterTest {
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private SimpleMeterRegistry meterRegistry;
+    private LibraryProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new LibraryProperties();
+        properties.setRequestQueueTimeout(0);
+    }
+
+    @Test
+    void shouldNotLimit_onPlatformThreads() {
+        // Given
+        RequestConcurrencyLimiter limiter = new RequestConcurrencyLimiter(properties, meterRegistry, false, 1);
+
+        // When
+        limiter.preHandle(request(), response, null);
+        limiter.preHandle(request(), response, null);
+
+        // Then
+        assertThat(inFlight()).isEqualTo(2);
+        assertThat(meterRegistry.find("library.requests.queue-time").timer()).isNull();
+    }
+
+    @Test
+    void shouldRejectRequest_whenPermitsSizedToPoolAreTaken() {
+        // Given
+        RequestConcurrencyLimiter limiter = new RequestConcurrencyLimiter(properties, meterRegistry, true, 1);
+        limiter.preHandle(request(), response, null);
+
+        // When / Then
+        assertThatThrownBy(() -> limiter.preHandle(request(), response, null))
+                .isInstanceOf(RequestQueueTimeoutException.class);
+        assertThat(inFlight()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.requests.queue-timeouts").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.requests.queue-time")
+                .tag("method", "GET").tag("uri", "/api/v1/books").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReleasePermit_whenRequestCompletes() {
+        // Given
+        RequestConcurrencyLimiter limiter = new RequestConcurrencyLimiter(properties, meterRegistry, true, 1);
+        MockHttpServletRequest first = request();
+        limiter.preHandle(first, response, null);
+
+        // When
+        limiter.afterCompletion(first, response, null, null);
+
+        // Then
+        assertThat(limiter.preHandle(request(), response, null)).isTrue();
+        assertThat(inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReleasePermitOnce_whenRequestGoesAsync() {
+        // Given
+        RequestConcurrencyLimiter limiter = new RequestConcurrencyLimiter(properties, meterRegistry, true, 1);
+        MockHttpServletRequest stream = request();
+        limiter.preHandle(stream, response, null);
+
+        // When
+        limiter.afterConcurrentHandlingStarted(stream, response, null);
+        stream.setDispatcherType(DispatcherType.ASYNC);
+        limiter.preHandle(stream, response, null);
+        limiter.afterCompletion(stream, response, null, null);
+
+        // Then
+        assertThat(inFlight()).isZero();
+        assertThat(limiter.preHandle(request(), response, null)).isTrue();
+        assertThatThrownBy(() -> limiter.preHandle(request(), response, null))
+                .isInstanceOf(RequestQueueTimeoutException.class);
+    }
+
+    @Test
+    void shouldPreferConfiguredLimit_overPoolSize() {
+        // Given
+        properties.setRequestConcurrencyLimit(2);
+        RequestConcurrencyLimiter limiter = new RequestConcurrencyLimiter(properties, meterRegistry, true, 1);
+
+        // When
+        limiter.preHandle(request(), response, null);
+        limiter.preHandle(request(), response, null);
+
+        // Then
+        assertThat(inFlight()).isEqualTo(2);
+        assertThatThrownBy(() -> limiter.preHandle(request(), response, null))
+                .isInstanceOf(RequestQueueTimeoutException.class);
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("library.requests.in-flight")
+                .tag("method", "GET").tag("uri", "/api/v1/books").gauge().value();
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/books");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/books");
+        return request;
+    }
+}
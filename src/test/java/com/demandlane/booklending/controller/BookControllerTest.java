@@ -3,23 +3,34 @@ package com.demandlane.booklending.controller;
 import com.demandlane.booklending.dto.BookDto;
 import com.demandlane.booklending.entity.Book;
 import com.demandlane.booklending.repository.BookRepository;
+import com.demandlane.booklending.service.CatalogCache;
+import com.demandlane.booklending.service.RowCountCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
+import com.jayway.jsonpath.JsonPath;
+
+import jakarta.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -37,6 +48,15 @@ class BookControllerTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private RowCountCache rowCountCache;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders
@@ -46,6 +66,8 @@ class BookControllerTest {
 
         objectMapper = new ObjectMapper();
         bookRepository.deleteAll();
+        // Books are inserted through the repository below, which the catalog cache does not see
+        catalogCache.invalidateAll();
     }
 
     // --- Authentication ---
@@ -99,6 +121,62 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.data").isArray());
     }
 
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldGetAllBooksWithoutCount() throws Exception {
+        // Given
+        createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        createTestBook("Refactoring", "Martin Fowler", "9780201485677");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books")
+                        .param("size", "1")
+                        .param("count", "NONE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].title").value("Clean Code"))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalExact").value(false));
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldGetAllBooksWithEstimatedCount() throws Exception {
+        // Given
+        rowCountCache.invalidateAll();
+        createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        createTestBook("Refactoring", "Martin Fowler", "9780201485677");
+        createTestBook("Domain-Driven Design", "Eric Evans", "9780321125217");
+
+        // When & Then - first lookup counts, so the total is exact
+        mockMvc.perform(get("/api/v1/books")
+                        .param("size", "1")
+                        .param("count", "ESTIMATED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.totalPages").value(3))
+                .andExpect(jsonPath("$.totalExact").value(true));
+
+        // Then - a new book is not counted until the cached total is refreshed
+        createTestBook("Patterns", "Martin Fowler", "9780321127426");
+        mockMvc.perform(get("/api/v1/books")
+                        .param("size", "1")
+                        .param("count", "ESTIMATED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.totalExact").value(false));
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldReturn400WhenCountModeIsUnknown() throws Exception {
+        mockMvc.perform(get("/api/v1/books").param("count", "SOMETIMES"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value 'SOMETIMES' for parameter count"));
+    }
+
     // --- Search / filter ---
 
     @Test
@@ -143,6 +221,158 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.data[0].isbn").value("9780132350884"));
     }
 
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldFilterBooksByTitlePrefix() throws Exception {
+        // Given
+        createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        createTestBook("The Clean Coder", "Robert Martin", "9780137081073");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books")
+                        .param("title", "clean")
+                        .param("match", "PREFIX"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].title").value("Clean Code"));
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldFilterBooksByExactAuthor() throws Exception {
+        // Given
+        createTestBook("Refactoring", "Martin Fowler", "9780201485677");
+        createTestBook("Clean Code", "Robert Martin", "9780132350884");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books")
+                        .param("author", "martin fowler")
+                        .param("match", "exact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].title").value("Refactoring"));
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldTreatLikeWildcardsInFilterAsLiterals() throws Exception {
+        // Given
+        createTestBook("100% Done", "Author", "ISBN-1");
+        createTestBook("1000 Days", "Author", "ISBN-2");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books").param("title", "100%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].title").value("100% Done"));
+        mockMvc.perform(get("/api/v1/books").param("title", "1_0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(0)));
+    }
+
+    // --- GET all by cursor ---
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldPageThroughBooksByCursor() throws Exception {
+        // Given
+        createTestBook("C Book", "Author", "ISBN-C");
+        createTestBook("A Book", "Author", "ISBN-A");
+        createTestBook("B Book", "Author", "ISBN-B");
+
+        // When - first page
+        MvcResult first = mockMvc.perform(get("/api/v1/books/cursor")
+                        .param("size", "2")
+                        .param("sort", "title,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.data[0].title").value("A Book"))
+                .andExpect(jsonPath("$.data[1].title").value("B Book"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andReturn();
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        // Then - second page continues after the cursor
+        mockMvc.perform(get("/api/v1/books/cursor")
+                        .param("size", "2")
+                        .param("sort", "title,asc")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].title").value("C Book"))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldPageThroughNullSortValuesByCursor() throws Exception {
+        // Given - nulls sort first in descending order
+        createTestBook("Known", "Author", "ISBN-1");
+        createTestBook("Anonymous 1", null, "ISBN-2");
+        createTestBook("Anonymous 2", null, "ISBN-3");
+
+        // When
+        MvcResult first = mockMvc.perform(get("/api/v1/books/cursor")
+                        .param("size", "1")
+                        .param("sort", "author,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].title").value("Anonymous 2"))
+                .andReturn();
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        MvcResult second = mockMvc.perform(get("/api/v1/books/cursor")
+                        .param("size", "1")
+                        .param("sort", "author,desc")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].title").value("Anonymous 1"))
+                .andReturn();
+        cursor = JsonPath.read(second.getResponse().getContentAsString(), "$.nextCursor");
+
+        // Then
+        mockMvc.perform(get("/api/v1/books/cursor")
+                        .param("size", "1")
+                        .param("sort", "author,desc")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].title").value("Known"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldFilterBooksByCursor() throws Exception {
+        // Given
+        createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        createTestBook("Refactoring", "Martin Fowler", "9780201485677");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books/cursor").param("title", "clean"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].title").value("Clean Code"));
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldReturn400WhenCursorDoesNotMatchSort() throws Exception {
+        // Given
+        createTestBook("A Book", "Author", "ISBN-A");
+        createTestBook("B Book", "Author", "ISBN-B");
+        MvcResult first = mockMvc.perform(get("/api/v1/books/cursor").param("size", "1"))
+                .andReturn();
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books/cursor").param("sort", "title,asc").param("cursor", cursor))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cursor does not match the requested sort"));
+        mockMvc.perform(get("/api/v1/books/cursor").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     // --- GET by ID ---
 
     @Test
@@ -160,6 +390,172 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.isbn").value("9780132350884"));
     }
 
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldReturn304WhenBookMatchesETag() throws Exception {
+        // Given
+        Book book = createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        String etag = mockMvc.perform(get("/api/v1/books/" + book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_JSON_VALUE))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books/" + book.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldChangeETag_afterBookIsUpdated() throws Exception {
+        // Given
+        Book book = createTestBook("Old Title", "Old Author", "1111111111");
+        String etag = mockMvc.perform(get("/api/v1/books/" + book.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        BookDto.Request request = BookDto.Request.builder().title("Updated Title").build();
+        mockMvc.perform(put("/api/v1/books/" + book.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books/" + book.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Updated Title"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn304ForBookList_untilABookChanges() throws Exception {
+        // Given
+        Book book = createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        String etag = mockMvc.perform(get("/api/v1/books"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/v1/books").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        BookDto.Request request = BookDto.Request.builder().availableCopies(1L).build();
+        mockMvc.perform(put("/api/v1/books/" + book.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].availableCopies").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldAnswerLaterChecks_withTagOfWholeSet() throws Exception {
+        // Given
+        createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        String pageTag = mockMvc.perform(get("/api/v1/books"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When
+        MockHttpServletResponse checked = mockMvc.perform(get("/api/v1/books").header("If-None-Match", pageTag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse();
+
+        // Then
+        String setTag = checked.getHeader("ETag");
+        assertThat(setTag).startsWith("W/").isNotEqualTo(pageTag);
+        assertThat(checked.getHeader("Last-Modified")).isNull();
+        mockMvc.perform(get("/api/v1/books").header("If-None-Match", setTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldIgnoreIfModifiedSince_forBookList_soDeletionsAreNotMissed() throws Exception {
+        // Given
+        createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        Book refactoring = createTestBook("Refactoring", "Martin Fowler", "9780201485677");
+        mockMvc.perform(delete("/api/v1/books/" + refactoring.getId()))
+                .andExpect(status().isNoContent());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books").header("If-Modified-Since", "Fri, 01 Jan 2100 00:00:00 GMT"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andExpect(jsonPath("$.data", hasSize(1)));
+    }
+
+    // --- GET changes ---
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldFeedBookChanges_withTombstonesForDeletedBooks() throws Exception {
+        // Given
+        Book cleanCode = createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        createTestBook("Refactoring", "Martin Fowler", "9780201485677");
+        detachAfterFlush();
+        MvcResult first = mockMvc.perform(get("/api/v1/books/changes").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserts", hasSize(1)))
+                .andExpect(jsonPath("$.upserts[0].title").value("Clean Code"))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andReturn();
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+        MvcResult second = mockMvc.perform(get("/api/v1/books/changes").param("since", cursor))
+                .andExpect(jsonPath("$.upserts", hasSize(1)))
+                .andExpect(jsonPath("$.upserts[0].title").value("Refactoring"))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andReturn();
+        cursor = JsonPath.read(second.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(delete("/api/v1/books/" + cleanCode.getId()))
+                .andExpect(status().isNoContent());
+        detachAfterFlush();
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books/changes").param("since", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserts", hasSize(0)))
+                .andExpect(jsonPath("$.tombstones", hasSize(1)))
+                .andExpect(jsonPath("$.tombstones[0].id").value(cleanCode.getId()))
+                .andExpect(jsonPath("$.tombstones[0].deletedAt").exists());
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldKeepCursor_whenNoBookChanged() throws Exception {
+        // Given
+        createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        detachAfterFlush();
+        MvcResult result = mockMvc.perform(get("/api/v1/books/changes")).andReturn();
+        String cursor = JsonPath.read(result.getResponse().getContentAsString(), "$.nextCursor");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/books/changes").param("since", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserts", hasSize(0)))
+                .andExpect(jsonPath("$.nextCursor").value(cursor));
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldReturn400WhenChangeCursorIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/v1/books/changes").param("since", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // --- GET availability stream ---
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldOpenAvailabilityStream() throws Exception {
+        mockMvc.perform(get("/api/v1/books/availability").param("bookIds", "1", "2")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
     @Test
     @WithMockUser(roles = "MEMBER")
     void shouldReturn404WhenBookNotFound() throws Exception {
@@ -242,6 +638,32 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.availableCopies").value(8));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn412WhenUpdatingBookChangedSinceIfMatch() throws Exception {
+        // Given
+        Book book = createTestBook("Clean Code", "Robert Martin", "9780132350884");
+        String etag = mockMvc.perform(get("/api/v1/books/" + book.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        BookDto.Request request = BookDto.Request.builder().availableCopies(2L).build();
+        mockMvc.perform(put("/api/v1/books/" + book.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableCopies").value(2));
+
+        // When & Then - the same read no longer matches
+        BookDto.Request stale = BookDto.Request.builder().availableCopies(4L).build();
+        mockMvc.perform(put("/api/v1/books/" + book.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(stale)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/v1/books/" + book.getId()))
+                .andExpect(jsonPath("$.availableCopies").value(2));
+    }
+
     @Test
     @WithMockUser(roles = "MEMBER")
     void shouldReturn403WhenMemberTriesToUpdate() throws Exception {
@@ -354,6 +776,15 @@ class BookControllerTest {
 
     // --- Helper ---
 
+    /**
+     * Each request of a running application reads the feed in a fresh session; without this, the
+     * test's session would hand back its in-memory timestamps, which the database rounds to microseconds.
+     */
+    private void detachAfterFlush() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
     private Book createTestBook(String title, String author, String isbn) {
         Book book = Book.builder()
                 .title(title)
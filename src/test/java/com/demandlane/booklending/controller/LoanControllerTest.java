@@ -23,10 +23,13 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -211,6 +214,79 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.data[0].bookId").value(book.getId()));
     }
 
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void shouldGetOwnedLoansByCursorAsMember() throws Exception {
+        // Given
+        createTestLoan(user, book);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/loans/self/cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].userName").value("John Doe"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void shouldReturn403WhenMemberListsAllLoansByCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/loans/cursor"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void shouldReturn403WhenMemberReadsLoanChanges() throws Exception {
+        mockMvc.perform(get("/api/v1/loans/changes"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldFeedLoanChangesAsAdmin() throws Exception {
+        // Given
+        Loan loan = createTestLoan(user, book);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/loans/changes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserts", hasSize(1)))
+                .andExpect(jsonPath("$.upserts[0].id").value(loan.getId()))
+                .andExpect(jsonPath("$.upserts[0].bookTitle").value("Clean Code"))
+                .andExpect(jsonPath("$.tombstones", hasSize(0)))
+                .andExpect(jsonPath("$.nextCursor").exists());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldGetAllLoansByCursorAsAdmin() throws Exception {
+        // Given
+        createTestLoan(user, book);
+        createTestLoan(user, book);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/loans/cursor")
+                        .param("size", "1")
+                        .param("sort", "dueDate,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn400OnFirstCursorPage_whenSortIsNotSupported() throws Exception {
+        // Given
+        createTestLoan(user, book);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/loans/cursor").param("sort", "book,asc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Sorting by this property is not supported with cursors"));
+    }
+
     // --- Search / filter ---
 
     @Test
@@ -271,6 +347,51 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.userName").value("John Doe"));
     }
 
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void shouldReturn304WhenOwnLoanMatchesETag() throws Exception {
+        // Given
+        Loan loan = createTestLoan(user, book);
+        String etag = mockMvc.perform(get("/api/v1/loans/" + loan.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/loans/" + loan.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn200ForLoan_afterItsBookIsRenamed() throws Exception {
+        // Given
+        Loan loan = createTestLoan(user, book);
+        String etag = mockMvc.perform(get("/api/v1/loans/" + loan.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        book.setTitle("Clean Code, 2nd Edition");
+        bookRepository.saveAndFlush(book);
+
+        // When & Then - the loan row is unchanged, but its response shows the book title
+        mockMvc.perform(get("/api/v1/loans/" + loan.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookTitle").value("Clean Code, 2nd Edition"));
+    }
+
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void shouldReturn304ForOwnedLoans_whenUnchanged() throws Exception {
+        // Given
+        createTestLoan(user, book);
+        String etag = mockMvc.perform(get("/api/v1/loans/self"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/loans/self").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     @WithMockUser(username = "other@example.com", roles = "MEMBER")
     void shouldReturn403WhenMemberViewsOtherUsersLoan() throws Exception {
@@ -452,6 +573,61 @@ class LoanControllerTest {
         org.assertj.core.api.Assertions.assertThat(updatedBook.getAvailableCopies()).isEqualTo(4L);
     }
 
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void shouldReplayBorrow_whenIdempotencyKeyIsRepeated() throws Exception {
+        // Given
+        String request = objectMapper.writeValueAsString(new LoanDto.BorrowRequest(book.getId()));
+        String key = UUID.randomUUID().toString();
+        String first = mockMvc.perform(post("/api/v1/loans/borrow")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn().getResponse().getContentAsString();
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/loans/borrow")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(content().json(first));
+
+        org.assertj.core.api.Assertions.assertThat(loanRepository.count()).isEqualTo(1);
+        Book updatedBook = bookRepository.findById(book.getId()).orElseThrow();
+        org.assertj.core.api.Assertions.assertThat(updatedBook.getAvailableCopies()).isEqualTo(4L);
+    }
+
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void shouldRejectIdempotencyKey_whenReusedForAnotherBook() throws Exception {
+        // Given
+        Book otherBook = bookRepository.save(Book.builder()
+                .title("Refactoring")
+                .author("Martin Fowler")
+                .isbn("9780134757599")
+                .totalCopies(5L)
+                .availableCopies(5L)
+                .build());
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(post("/api/v1/loans/borrow")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoanDto.BorrowRequest(book.getId()))))
+                .andExpect(status().isCreated());
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/loans/borrow")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoanDto.BorrowRequest(otherBook.getId()))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Idempotency-Key was already used for a different request"));
+    }
+
     @Test
     @WithMockUser(username = "john@example.com", roles = "MEMBER")
     void shouldRejectBorrowWhenMaxActiveLoansReached() throws Exception {
@@ -537,6 +713,31 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.message").value("Book not found with id: 999"));
     }
 
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void shouldNotClaimCopyWhenBorrowIsRejected() throws Exception {
+        // Given - an overdue loan blocks the borrow
+        Loan overdueLoan = Loan.builder()
+                .user(user)
+                .book(book)
+                .borrowedAt(LocalDateTime.now().minusDays(30))
+                .dueDate(LocalDateTime.now().minusDays(1))
+                .returnedAt(null)
+                .build();
+        loanRepository.save(overdueLoan);
+
+        // When
+        LoanDto.BorrowRequest request = new LoanDto.BorrowRequest(book.getId());
+        mockMvc.perform(post("/api/v1/loans/borrow")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        // Then - the guarded claim left the inventory untouched
+        Book unchanged = bookRepository.findById(book.getId()).orElseThrow();
+        org.assertj.core.api.Assertions.assertThat(unchanged.getAvailableCopies()).isEqualTo(5L);
+    }
+
     // --- RETURN ENDPOINT ---
 
     @Test
@@ -558,6 +759,27 @@ class LoanControllerTest {
         org.assertj.core.api.Assertions.assertThat(updatedBook.getAvailableCopies()).isEqualTo(5L);
     }
 
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void shouldReplayReturn_whenIdempotencyKeyIsRepeated() throws Exception {
+        // Given
+        book.setAvailableCopies(4L);
+        bookRepository.save(book);
+        Loan loan = createTestLoan(user, book);
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(put("/api/v1/loans/return/" + loan.getId()).header("Idempotency-Key", key))
+                .andExpect(status().isOk());
+
+        // When & Then - the retry is not rejected as already returned
+        mockMvc.perform(put("/api/v1/loans/return/" + loan.getId()).header("Idempotency-Key", key))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(loan.getId()));
+
+        Book updatedBook = bookRepository.findById(book.getId()).orElseThrow();
+        org.assertj.core.api.Assertions.assertThat(updatedBook.getAvailableCopies()).isEqualTo(5L);
+    }
+
     @Test
     @WithMockUser(username = "john@example.com", roles = "MEMBER")
     void shouldRejectReturnWhenAlreadyReturned() throws Exception {
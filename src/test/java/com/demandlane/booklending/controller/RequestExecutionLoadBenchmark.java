@@ -0,0 +1,127 @@
+package com.demandlane.booklending.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.demandlane.booklending.DemandlaneBookLendingApiApplication;
+import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Load test of the book listing and borrow endpoints over HTTP, with requests served on platform
+ * threads ({@code virtual = false}, Tomcat pool of 50) and on virtual threads behind the request
+ * limiter sized to the JDBC pool ({@code virtual = true}). More clients than Tomcat threads call
+ * the running application at once; compare throughput, and {@code library.requests.*} on
+ * {@code /actuator/metrics} for where requests waited.
+ * <p>
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.demandlane.booklending.controller.RequestExecutionLoadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(128)
+@Fork(1)
+public class RequestExecutionLoadBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean virtual;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private String token;
+    private Long bookId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(DemandlaneBookLendingApiApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                            "server.tomcat.threads.max=50",
+                            "spring.threads.virtual.enabled=" + virtual,
+                            "spring.datasource.url=jdbc:h2:mem:load" + virtual + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                            "library.max-active-loans=1000000")
+                .run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        bookId = context.getBean(BookService.class).save(BookDto.Request.builder()
+                .title("Load Test")
+                .author("Benchmark")
+                .isbn("LOAD-" + virtual)
+                .totalCopies(1_000_000L)
+                .availableCopies(1_000_000L)
+                .build()).getId();
+
+        HttpResponse<String> login = client.send(json("/api/v1/auth/login")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"admin@demandlane.com\",\"password\":\"password123\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        token = objectMapper.readTree(login.body()).get("token").asText();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int listBooks() throws IOException, InterruptedException {
+        return client.send(json("/api/v1/books?page=0&size=10").GET().build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int borrowAndReturn() throws IOException, InterruptedException {
+        HttpResponse<String> borrowed = client.send(json("/api/v1/loans/borrow")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"bookId\":" + bookId + "}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (borrowed.statusCode() != 201) {
+            return borrowed.statusCode();
+        }
+        long loanId = objectMapper.readTree(borrowed.body()).get("id").asLong();
+        return client.send(json("/api/v1/loans/return/" + loanId)
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest.Builder json(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json");
+        return token == null ? request : request.header("Authorization", "Bearer " + token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RequestExecutionLoadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -4,6 +4,8 @@ import com.demandlane.booklending.dto.UserDto;
 import com.demandlane.booklending.entity.Role;
 import com.demandlane.booklending.entity.User;
 import com.demandlane.booklending.repository.UserRepository;
+import com.demandlane.booklending.security.DeletedUserRegistry;
+import com.demandlane.booklending.security.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,6 +22,7 @@ import org.springframework.web.context.WebApplicationContext;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -38,6 +41,12 @@ class UserControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private DeletedUserRegistry deletedUserRegistry;
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders
@@ -96,6 +105,44 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.email").value("test@example.com"));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn304WhenUserMatchesETag() throws Exception {
+        // Given
+        User user = createTestUser("Test User", "test@example.com");
+        String etag = mockMvc.perform(get("/api/v1/users/" + user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/users/" + user.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(jsonPath("$").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn200ForUserList_afterAUserChanges() throws Exception {
+        // Given
+        User user = createTestUser("Old Name", "old@example.com");
+        String etag = mockMvc.perform(get("/api/v1/users"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/v1/users").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        UserDto.Request request = UserDto.Request.builder().name("New Name").build();
+        mockMvc.perform(put("/api/v1/users/" + user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/users").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].name").value("New Name"));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void shouldReturn404WhenUserNotFound() throws Exception {
@@ -285,6 +332,33 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.name").value("Test User"));
     }
 
+    @Test
+    void shouldGetOwnProfileWithBearerToken() throws Exception {
+        // Given
+        User user = createTestUser("Test User", "test@example.com");
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), "MEMBER");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/users/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(user.getId()))
+                .andExpect(jsonPath("$.email").value("test@example.com"));
+    }
+
+    @Test
+    void shouldRejectBearerTokenOfDeletedUser() throws Exception {
+        // Given
+        User user = createTestUser("Test User", "test@example.com");
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), "MEMBER");
+        user.softDelete();
+        userRepository.save(user);
+        deletedUserRegistry.refresh();
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/users/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser(username = "admin@example.com", roles = "ADMIN")
     void shouldGetOwnProfileAsAdmin() throws Exception {
@@ -358,6 +432,22 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data[0].role").value("ADMIN"));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldFilterUsersByExactEmail() throws Exception {
+        // Given
+        createTestUser("Alice Smith", "alice@example.com");
+        createTestUser("Alice Cooper", "alice@example.com.au");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/users")
+                        .param("email", "ALICE@example.com")
+                        .param("match", "exact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].name").value("Alice Smith"));
+    }
+
     private User createTestUser(String name, String email) {
         return createTestUserWithRole(name, email, Role.MEMBER);
     }
@@ -0,0 +1,61 @@
+package com.demandlane.booklending.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageResponseTest {
+
+    @Test
+    void shouldOmitTotals_forSlice() {
+        // When
+        PageResponse<String> response = PageResponse.of(new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true));
+
+        // Then
+        assertThat(response.getData()).containsExactly("a", "b");
+        assertThat(response.getTotalElements()).isNull();
+        assertThat(response.getTotalPages()).isNull();
+        assertThat(response.isTotalExact()).isFalse();
+        assertThat(response.isLast()).isFalse();
+    }
+
+    @Test
+    void shouldUseEstimate_whenMorePagesFollow() {
+        // When
+        PageResponse<String> response = PageResponse.estimated(
+                new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true), 100, false);
+
+        // Then
+        assertThat(response.getTotalElements()).isEqualTo(100L);
+        assertThat(response.getTotalPages()).isEqualTo(50);
+        assertThat(response.isTotalExact()).isFalse();
+    }
+
+    @Test
+    void shouldRaiseStaleEstimate_toRowsAlreadySeen() {
+        // When
+        PageResponse<String> response = PageResponse.estimated(
+                new SliceImpl<>(List.of("c", "d"), PageRequest.of(1, 2), true), 3, false);
+
+        // Then
+        assertThat(response.getTotalElements()).isEqualTo(5L);
+        assertThat(response.isTotalExact()).isFalse();
+    }
+
+    @Test
+    void shouldReportExactTotal_onLastPage() {
+        // When
+        PageResponse<String> response = PageResponse.estimated(
+                new SliceImpl<>(List.of("e"), PageRequest.of(2, 2), false), 100, false);
+
+        // Then
+        assertThat(response.getTotalElements()).isEqualTo(5L);
+        assertThat(response.getTotalPages()).isEqualTo(3);
+        assertThat(response.isTotalExact()).isTrue();
+        assertThat(response.isLast()).isTrue();
+    }
+}
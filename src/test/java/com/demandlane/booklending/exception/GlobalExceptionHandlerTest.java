@@ -2,6 +2,7 @@ package com.demandlane.booklending.exception;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -34,6 +35,22 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody().get("timestamp")).isNotNull();
     }
 
+    @Test
+    void shouldHandleOptimisticLockingFailureException_asConflict() {
+        // Given
+        OptimisticLockingFailureException exception = new OptimisticLockingFailureException("Row was updated by another transaction");
+
+        // When
+        ResponseEntity<Map<String, Object>> response = exceptionHandler.handleOptimisticLockingFailureException(exception);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().get("status")).isEqualTo(409);
+        assertThat(response.getBody().get("message")).isEqualTo("The resource was modified concurrently, please retry");
+        assertThat(response.getBody().get("timestamp")).isNotNull();
+    }
+
     @Test
     void shouldHandleIllegalStateException() {
         // Given
@@ -2,10 +2,14 @@ package com.demandlane.booklending.repository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -98,4 +102,34 @@ public class BookRepositoryIntegrationTest {
         // Then
         assertEquals(2, count);
     }
+
+    @Test
+    void shouldBumpVersion_whenCopyIsClaimed() {
+        // Given
+        Book book = bookRepository.saveAndFlush(createTestBook());
+        Long version = book.getVersion();
+
+        // When
+        int claimed = bookRepository.claimCopy(book.getId(), LocalDateTime.now());
+        Book reloaded = bookRepository.findById(book.getId()).orElseThrow();
+
+        // Then
+        assertEquals(1, claimed);
+        assertEquals(TEST_AVAILABLE_COPIES - 1, reloaded.getAvailableCopies());
+        assertEquals(version + 1, reloaded.getVersion());
+    }
+
+    @Test
+    void shouldRejectStaleUpdate_afterConcurrentClaim() {
+        // Given
+        Book book = bookRepository.saveAndFlush(createTestBook());
+        Book stale = createTestBook();
+        stale.setId(book.getId());
+        stale.setVersion(book.getVersion());
+        stale.setTitle("Stale Title");
+        bookRepository.claimCopy(book.getId(), LocalDateTime.now());
+
+        // When / Then
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookRepository.saveAndFlush(stale));
+    }
 }
@@ -0,0 +1,41 @@
+package com.demandlane.booklending.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class SchemaMigrationIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldApplyAllMigrations() {
+        // When
+        List<String> versions = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM flyway_schema_history WHERE \"success\" = TRUE AND \"version\" IS NOT NULL ORDER BY \"installed_rank\"",
+                String.class);
+
+        // Then
+        assertThat(versions).startsWith("1").contains("3");
+    }
+
+    @Test
+    void shouldIndexLoanHotPaths() {
+        // When
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT index_name FROM information_schema.indexes WHERE table_name = 'loans'",
+                String.class);
+
+        // Then
+        assertThat(indexes).contains("idx_loans_user_due_open", "idx_loans_user_active", "idx_loans_book_active");
+    }
+}
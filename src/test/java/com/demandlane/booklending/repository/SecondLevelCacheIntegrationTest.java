@@ -0,0 +1,180 @@
+package com.demandlane.booklending.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.demandlane.booklending.config.SecondLevelCacheConfig;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.entity.User;
+import com.demandlane.booklending.service.BookInventoryService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Runs against the seeded, committed users and books, as the second-level cache only ever
+ * holds committed state. Each step runs in its own transaction: a read-write region never
+ * serves a transaction the entries cached after it began.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookInventoryService bookInventoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Statistics statistics;
+    private Book book;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        // Writes rolled back by other tests leave their entries locked for a while
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        book = transaction.execute(status -> bookRepository.findAllActive(PageRequest.of(0, 1)).getContent().getFirst());
+        user = transaction.execute(status -> userRepository.findActiveByEmail("admin@demandlane.com").orElseThrow());
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsById_fromCache() {
+        // Given
+        transaction.executeWithoutResult(status -> {
+            bookRepository.findActiveById(book.getId());
+            userRepository.findActiveById(user.getId());
+        });
+        statistics.clear();
+
+        // When
+        transaction.executeWithoutResult(status -> {
+            assertThat(bookRepository.findActiveById(book.getId()).orElseThrow().getIsbn()).isEqualTo(book.getIsbn());
+            assertThat(userRepository.findActiveById(user.getId()).orElseThrow().getEmail()).isEqualTo(user.getEmail());
+        });
+
+        // Then
+        CacheRegionStatistics books = statistics.getCacheRegionStatistics(SecondLevelCacheConfig.BOOKS_REGION);
+        CacheRegionStatistics users = statistics.getCacheRegionStatistics(SecondLevelCacheConfig.USERS_REGION);
+        assertThat(books.getHitCount()).isEqualTo(1);
+        assertThat(books.getMissCount()).isZero();
+        assertThat(users.getHitCount()).isEqualTo(1);
+        assertThat(users.getMissCount()).isZero();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupByEmail_fromQueryCache() {
+        // Given
+        transaction.executeWithoutResult(status -> userRepository.findActiveByEmail(user.getEmail()));
+        statistics.clear();
+
+        // When
+        User cached = transaction.execute(status -> userRepository.findActiveByEmail(user.getEmail()).orElseThrow());
+
+        // Then
+        assertThat(cached.getId()).isEqualTo(user.getId());
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheMissCount()).isZero();
+    }
+
+    @Test
+    void shouldNotServeStaleAvailableCopies_whileOrAfterCopyIsClaimed() {
+        // Given
+        long available = availableCopiesInNewTransaction();
+
+        try {
+            // When / Then
+            transaction.executeWithoutResult(status -> {
+                assertThat(bookInventoryService.claim(book.getId(), user.getId(), LocalDateTime.now())).isTrue();
+                assertThat(cachedAvailableCopies()).isEqualTo(available - 1);
+            });
+            assertThat(availableCopiesInNewTransaction()).isEqualTo(available - 1);
+        } finally {
+            transaction.executeWithoutResult(status -> bookInventoryService.release(book.getId(), 0L, LocalDateTime.now()));
+        }
+        assertThat(availableCopiesInNewTransaction()).isEqualTo(available);
+    }
+
+    @Test
+    void shouldNotCacheUncommittedAvailableCopies_whenClaimRollsBack() {
+        // Given
+        long available = availableCopiesInNewTransaction();
+
+        // When
+        transaction.executeWithoutResult(status -> {
+            bookInventoryService.claim(book.getId(), user.getId(), LocalDateTime.now());
+            cachedAvailableCopies();
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertThat(availableCopiesInNewTransaction()).isEqualTo(available);
+    }
+
+    @Test
+    void shouldKeepOtherBooksCached_whenCopyIsClaimed() {
+        // Given
+        Book other = transaction.execute(status -> bookRepository.findAllActive(PageRequest.of(1, 1)).getContent().getFirst());
+        transaction.executeWithoutResult(status -> bookRepository.findActiveById(other.getId()));
+
+        try {
+            transaction.executeWithoutResult(status -> bookInventoryService.claim(book.getId(), user.getId(), LocalDateTime.now()));
+            statistics.clear();
+
+            // When
+            transaction.executeWithoutResult(status -> bookRepository.findActiveById(other.getId()));
+
+            // Then
+            assertThat(statistics.getCacheRegionStatistics(SecondLevelCacheConfig.BOOKS_REGION).getHitCount()).isEqualTo(1);
+        } finally {
+            transaction.executeWithoutResult(status -> bookInventoryService.release(book.getId(), 0L, LocalDateTime.now()));
+        }
+    }
+
+    @Test
+    void shouldNotServeSoftDeletedUser() {
+        transaction.executeWithoutResult(status -> {
+            // Given
+            User loaded = userRepository.findActiveById(user.getId()).orElseThrow();
+            loaded.softDelete();
+            userRepository.saveAndFlush(loaded);
+
+            // When / Then
+            assertThat(userRepository.findActiveById(user.getId())).isEmpty();
+            assertThat(userRepository.findActiveByEmail(user.getEmail())).isEmpty();
+            status.setRollbackOnly();
+        });
+    }
+
+    private long availableCopiesInNewTransaction() {
+        return transaction.execute(status -> cachedAvailableCopies());
+    }
+
+    private long cachedAvailableCopies() {
+        return bookRepository.findActiveById(book.getId()).orElseThrow().getAvailableCopies();
+    }
+}
@@ -0,0 +1,75 @@
+package com.demandlane.booklending.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.demandlane.booklending.repository.UserRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeletedUserRegistryTest {
+
+    private static final long LIFETIME = 60_000;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private UserRepository userRepository;
+    private DeletedUserRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        registry = new DeletedUserRegistry(userRepository, LIFETIME, clock::get);
+    }
+
+    @Test
+    void shouldOnlyLoadUsersDeletedWithinOneTokenLifetime() {
+        // Given
+        when(userRepository.findDeletedIdsSince(any())).thenReturn(List.of(1L));
+
+        // When
+        registry.refresh();
+
+        // Then
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.get() - LIFETIME), ZoneId.systemDefault());
+        verify(userRepository).findDeletedIdsSince(since);
+        assertThat(registry.isDeleted(1L)).isTrue();
+        assertThat(registry.isDeleted(2L)).isFalse();
+    }
+
+    @Test
+    void shouldForgetDeletedUser_afterOneTokenLifetime() {
+        // Given
+        registry.markDeleted(1L);
+
+        // When
+        clock.addAndGet(LIFETIME);
+
+        // Then - every token issued before the deletion has expired
+        assertThat(registry.isDeleted(1L)).isFalse();
+    }
+
+    @Test
+    void shouldNotExtendExpiry_whenRefreshFindsKnownUser() {
+        // Given
+        registry.markDeleted(1L);
+        when(userRepository.findDeletedIdsSince(any())).thenReturn(List.of(1L));
+
+        // When
+        clock.addAndGet(LIFETIME / 2);
+        registry.refresh();
+        clock.addAndGet(LIFETIME / 2);
+
+        // Then
+        assertThat(registry.isDeleted(1L)).isFalse();
+    }
+}
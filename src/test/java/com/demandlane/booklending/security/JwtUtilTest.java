@@ -4,6 +4,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class JwtUtilTest {
@@ -20,7 +23,7 @@ class JwtUtilTest {
     @Test
     void shouldGenerateToken() {
         // When
-        String token = jwtUtil.generateToken("test@example.com", "MEMBER");
+        String token = jwtUtil.generateToken(1L, "test@example.com", "MEMBER");
 
         // Then
         assertThat(token).isNotNull();
@@ -30,7 +33,7 @@ class JwtUtilTest {
     @Test
     void shouldExtractEmailFromToken() {
         // Given
-        String token = jwtUtil.generateToken("test@example.com", "MEMBER");
+        String token = jwtUtil.generateToken(1L, "test@example.com", "MEMBER");
 
         // When
         String email = jwtUtil.extractEmail(token);
@@ -42,7 +45,7 @@ class JwtUtilTest {
     @Test
     void shouldExtractRoleFromToken() {
         // Given
-        String token = jwtUtil.generateToken("test@example.com", "ADMIN");
+        String token = jwtUtil.generateToken(1L, "test@example.com", "ADMIN");
 
         // When
         String role = jwtUtil.extractRole(token);
@@ -54,7 +57,7 @@ class JwtUtilTest {
     @Test
     void shouldValidateToken() {
         // Given
-        String token = jwtUtil.generateToken("test@example.com", "MEMBER");
+        String token = jwtUtil.generateToken(1L, "test@example.com", "MEMBER");
 
         // When
         boolean isValid = jwtUtil.validateToken(token);
@@ -82,7 +85,7 @@ class JwtUtilTest {
         ReflectionTestUtils.setField(shortExpiryJwtUtil, "secret", "testSecretKeyThatIsAtLeast32CharactersLongForHS256AlgorithmTesting");
         ReflectionTestUtils.setField(shortExpiryJwtUtil, "expiration", -1L); // Already expired
 
-        String token = shortExpiryJwtUtil.generateToken("test@example.com", "MEMBER");
+        String token = shortExpiryJwtUtil.generateToken(1L, "test@example.com", "MEMBER");
 
         // When
         boolean isValid = shortExpiryJwtUtil.validateToken(token);
@@ -94,8 +97,8 @@ class JwtUtilTest {
     @Test
     void shouldGenerateDifferentTokensForDifferentUsers() {
         // When
-        String token1 = jwtUtil.generateToken("user1@example.com", "MEMBER");
-        String token2 = jwtUtil.generateToken("user2@example.com", "ADMIN");
+        String token1 = jwtUtil.generateToken(1L, "user1@example.com", "MEMBER");
+        String token2 = jwtUtil.generateToken(2L, "user2@example.com", "ADMIN");
 
         // Then
         assertThat(token1).isNotEqualTo(token2);
@@ -110,4 +113,37 @@ class JwtUtilTest {
         assertThat(role1).isEqualTo("MEMBER");
         assertThat(role2).isEqualTo("ADMIN");
     }
+
+    @Test
+    void shouldVerifyTokenIntoPrincipal() {
+        // Given
+        String token = jwtUtil.generateToken(1L, "test@example.com", "ADMIN");
+
+        // When
+        Optional<JwtPrincipal> principal = jwtUtil.verify(token);
+
+        // Then
+        assertThat(principal).isPresent();
+        assertThat(principal.get().userId()).isEqualTo(1L);
+        assertThat(principal.get().email()).isEqualTo("test@example.com");
+        assertThat(principal.get().getName()).isEqualTo("test@example.com");
+        assertThat(principal.get().role()).isEqualTo("ADMIN");
+        assertThat(principal.get().tokenId()).isNotBlank();
+        assertThat(principal.get().issuedAt()).isNotNull();
+        assertThat(principal.get().expiresAt()).isAfter(Instant.now());
+        assertThat(principal.get().authorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void shouldNotVerifyTamperedToken() {
+        // Given
+        String token = jwtUtil.generateToken(1L, "test@example.com", "MEMBER");
+        JwtUtil otherKeyJwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(otherKeyJwtUtil, "secret", "anotherSecretKeyThatIsAtLeast32CharactersLongForHS256Algorithm");
+        ReflectionTestUtils.setField(otherKeyJwtUtil, "expiration", 86400000L);
+
+        // When & Then
+        assertThat(otherKeyJwtUtil.verify(token)).isEmpty();
+        assertThat(jwtUtil.verify("invalid.token.here")).isEmpty();
+    }
 }
@@ -0,0 +1,132 @@
+package com.demandlane.booklending.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.demandlane.booklending.exception.LoginThrottledException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginAttemptTrackerTest {
+
+    private static final String EMAIL = "test@example.com";
+    private static final String IP = "10.0.0.1";
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private LoginAttemptTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 3 failures per email, 5 per address, within 60s; 300s lockout
+        tracker = new LoginAttemptTracker(meterRegistry, 3, 5, 60_000, 300_000, 1_000, clock::get);
+    }
+
+    @Test
+    void shouldAllowLogin_belowFailureLimit() {
+        // Given
+        fail(EMAIL, IP, 2);
+
+        // When / Then
+        assertThatCode(() -> tracker.checkAllowed(EMAIL, IP)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void shouldLockOutEmail_afterTooManyFailuresInWindow() {
+        // Given
+        fail(EMAIL, IP, 3);
+
+        // When / Then - the email is locked whatever the address
+        assertThatThrownBy(() -> tracker.checkAllowed("Test@Example.com", "10.0.0.2"))
+                .isInstanceOf(LoginThrottledException.class)
+                .satisfies(e -> assertThat(((LoginThrottledException) e).getRetryAfterSeconds()).isEqualTo(300));
+        assertThat(counter("security.login-throttle.lockouts", "email")).isEqualTo(1);
+        assertThat(counter("security.login-throttle.rejections", "email")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotLockOut_whenFailuresAreSpreadBeyondWindow() {
+        // Given
+        fail(EMAIL, IP, 2);
+        advance(61);
+
+        // When
+        fail(EMAIL, IP, 1);
+
+        // Then
+        assertThatCode(() -> tracker.checkAllowed(EMAIL, IP)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void shouldLiftLockout_afterLockoutPeriod() {
+        // Given
+        fail(EMAIL, IP, 3);
+
+        // When
+        advance(301);
+
+        // Then
+        assertThatCode(() -> tracker.checkAllowed(EMAIL, IP)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void shouldLockOutAddress_acrossEmails() {
+        // Given - one failure each for many emails from the same address
+        for (int i = 0; i < 5; i++) {
+            tracker.recordFailure("user" + i + "@example.com", IP);
+        }
+
+        // When / Then
+        assertThatThrownBy(() -> tracker.checkAllowed("other@example.com", IP))
+                .isInstanceOf(LoginThrottledException.class);
+        assertThatCode(() -> tracker.checkAllowed("other@example.com", "10.0.0.2")).doesNotThrowAnyException();
+        assertThat(counter("security.login-throttle.lockouts", "ip")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotTrackAddresses_whenAddressLimitIsZero() {
+        // Given
+        tracker = new LoginAttemptTracker(meterRegistry, 3, 0, 60_000, 300_000, 1_000, clock::get);
+        for (int i = 0; i < 10; i++) {
+            tracker.recordFailure("user" + i + "@example.com", IP);
+        }
+
+        // When / Then
+        assertThatCode(() -> tracker.checkAllowed("other@example.com", IP)).doesNotThrowAnyException();
+        assertThat(counter("security.login-throttle.lockouts", "ip")).isZero();
+    }
+
+    @Test
+    void shouldClearEmailFailures_onSuccess() {
+        // Given
+        fail(EMAIL, IP, 2);
+
+        // When
+        tracker.recordSuccess(EMAIL);
+        fail(EMAIL, IP, 2);
+
+        // Then
+        assertThatCode(() -> tracker.checkAllowed(EMAIL, IP)).doesNotThrowAnyException();
+    }
+
+    private void fail(String email, String ip, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.recordFailure(email, ip);
+        }
+    }
+
+    private void advance(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private double counter(String name, String key) {
+        return meterRegistry.get(name).tag("key", key).counter().count();
+    }
+}
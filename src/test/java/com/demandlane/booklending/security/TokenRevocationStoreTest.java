@@ -0,0 +1,140 @@
+package com.demandlane.booklending.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationStoreTest {
+
+    private static final long LIFETIME = 60_000;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private SimpleMeterRegistry meterRegistry;
+    private TokenRevocationStore store;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new TokenRevocationStore(meterRegistry, LIFETIME, 1_000, 0.01, clock::get);
+    }
+
+    @Test
+    void shouldRejectRevokedToken_andKeepOtherTokensValid() {
+        // Given
+        JwtPrincipal revoked = token(1L, "token-1");
+        JwtPrincipal other = token(1L, "token-2");
+
+        // When
+        store.revoke(revoked);
+
+        // Then
+        assertThat(store.isRevoked(revoked)).isTrue();
+        assertThat(store.isRevoked(other)).isFalse();
+    }
+
+    @Test
+    void shouldForgetRevokedToken_afterItExpires() {
+        // Given
+        JwtPrincipal revoked = token(1L, "token-1");
+        store.revoke(revoked);
+
+        // When
+        clock.addAndGet(LIFETIME);
+        store.rebuild();
+
+        // Then - the token itself would now be rejected as expired
+        assertThat(store.isRevoked(revoked)).isFalse();
+        assertThat(meterRegistry.get("security.token-revocation.false-positives").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldRejectEveryEarlierToken_whenAllRevokedForUser() {
+        // Given
+        JwtPrincipal first = token(1L, "token-1");
+        JwtPrincipal second = token(1L, "token-2");
+        JwtPrincipal otherUser = token(2L, "token-3");
+
+        // When
+        store.revokeAllForUser(1L);
+
+        // Then
+        assertThat(store.isRevoked(first)).isTrue();
+        assertThat(store.isRevoked(second)).isTrue();
+        assertThat(store.isRevoked(otherUser)).isFalse();
+    }
+
+    @Test
+    void shouldAcceptTokenIssuedAfterUserRevocation() {
+        // Given
+        store.revokeAllForUser(1L);
+
+        // When
+        clock.addAndGet(1_000);
+        JwtPrincipal reissued = token(1L, "token-2");
+
+        // Then
+        assertThat(store.isRevoked(reissued)).isFalse();
+    }
+
+    @Test
+    void shouldRevokeWholeUser_whenTokenHasNoId() {
+        // Given - issued before tokens carried a jti
+        JwtPrincipal legacy = token(1L, null);
+
+        // When
+        store.revoke(legacy);
+
+        // Then
+        assertThat(store.isRevoked(legacy)).isTrue();
+    }
+
+    @Test
+    void shouldKeepRevocations_acrossRebuild() {
+        // Given
+        JwtPrincipal revoked = token(1L, "token-1");
+        store.revoke(revoked);
+        store.revokeAllForUser(2L);
+
+        // When
+        store.rebuild();
+
+        // Then
+        assertThat(store.isRevoked(revoked)).isTrue();
+        assertThat(store.isRevoked(token(2L, "token-2"))).isTrue();
+    }
+
+    @Test
+    void shouldNeverMissAnEntry_andRarelyHitAnAbsentOne() {
+        // Given
+        BloomFilter filter = BloomFilter.create(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.put(BloomFilter.hash("revoked-" + i));
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(BloomFilter.hash("valid-" + i))) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.mightContain(BloomFilter.hash("revoked-" + i))).isTrue();
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    private JwtPrincipal token(Long userId, String tokenId) {
+        Instant now = Instant.ofEpochMilli(clock.get()).truncatedTo(ChronoUnit.SECONDS);
+        return new JwtPrincipal(userId, "user" + userId + "@example.com", "MEMBER", tokenId,
+                now, now.plusMillis(LIFETIME));
+    }
+}
@@ -0,0 +1,72 @@
+package com.demandlane.booklending.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private JwtUtil jwtUtil;
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil());
+        ReflectionTestUtils.setField(jwtUtil, "secret", "testSecretKeyThatIsAtLeast32CharactersLongForHS256AlgorithmTesting");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, meterRegistry, 100);
+    }
+
+    @Test
+    void shouldVerifyTokenOnlyOnce_whenReused() {
+        // Given
+        String token = jwtUtil.generateToken(1L, "test@example.com", "MEMBER");
+
+        // When
+        Optional<JwtPrincipal> first = verifiedTokenCache.verify(token);
+        Optional<JwtPrincipal> second = verifiedTokenCache.verify(token);
+
+        // Then
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+        verify(jwtUtil, times(1)).verify(token);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.verified-tokens").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.verified-tokens").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldNotCacheInvalidToken() {
+        // When
+        verifiedTokenCache.verify("invalid.token.here");
+        Optional<JwtPrincipal> result = verifiedTokenCache.verify("invalid.token.here");
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(jwtUtil, times(2)).verify("invalid.token.here");
+    }
+
+    @Test
+    void shouldNotServeEntryPastTokenExpiry() {
+        // Given - a principal whose exp is already in the past
+        doReturn(Optional.of(new JwtPrincipal(1L, "test@example.com", "MEMBER", "token-1", Instant.now().minusSeconds(60), Instant.now().minusSeconds(1))))
+                .when(jwtUtil).verify("expiring");
+
+        // When
+        verifiedTokenCache.verify("expiring");
+        verifiedTokenCache.verify("expiring");
+
+        // Then - the entry expired immediately, so the token was verified again
+        verify(jwtUtil, times(2)).verify("expiring");
+    }
+}
@@ -4,23 +4,30 @@ import com.demandlane.booklending.dto.AuthDto;
 import com.demandlane.booklending.dto.UserDto;
 import com.demandlane.booklending.entity.Role;
 import com.demandlane.booklending.entity.User;
+import com.demandlane.booklending.exception.LoginThrottledException;
 import com.demandlane.booklending.exception.ResourceNotFoundException;
 import com.demandlane.booklending.mapper.UserMapper;
 import com.demandlane.booklending.repository.UserRepository;
+import com.demandlane.booklending.security.JwtPrincipal;
 import com.demandlane.booklending.security.JwtUtil;
+import com.demandlane.booklending.security.LoginAttemptTracker;
+import com.demandlane.booklending.security.PasswordHasher;
+import com.demandlane.booklending.security.TokenRevocationStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -34,11 +41,17 @@ class AuthServiceTest {
     private UserMapper userMapper;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private LoginAttemptTracker loginAttempts;
+
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+
     @InjectMocks
     private AuthService authService;
 
@@ -75,7 +88,7 @@ class AuthServiceTest {
         // Given
         when(userRepository.findActiveByEmail(anyString())).thenReturn(Optional.empty());
         when(userMapper.toEntity(any(UserDto.Request.class))).thenReturn(user);
-        when(passwordEncoder.encode(anyString())).thenReturn("hashedPassword");
+        when(passwordHasher.encode(anyString())).thenReturn("hashedPassword");
         when(userRepository.save(any(User.class))).thenReturn(user);
         when(userMapper.toResponse(any(User.class))).thenReturn(userResponse);
 
@@ -88,7 +101,7 @@ class AuthServiceTest {
         assertThat(result.getName()).isEqualTo("Test User");
 
         verify(userRepository).findActiveByEmail("test@example.com");
-        verify(passwordEncoder).encode("password123");
+        verify(passwordHasher).encode("password123");
         verify(userRepository).save(any(User.class));
     }
 
@@ -114,11 +127,11 @@ class AuthServiceTest {
                 .build();
 
         when(userRepository.findActiveByEmail(anyString())).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
-        when(jwtUtil.generateToken(anyString(), anyString())).thenReturn("jwt-token");
+        when(passwordHasher.matches(anyString(), anyString())).thenReturn(true);
+        when(jwtUtil.generateToken(anyLong(), anyString(), anyString())).thenReturn("jwt-token");
 
         // When
-        AuthDto.LoginResponse result = authService.login(loginRequest);
+        AuthDto.LoginResponse result = authService.login(loginRequest, "10.0.0.1");
 
         // Then
         assertThat(result).isNotNull();
@@ -127,8 +140,10 @@ class AuthServiceTest {
         assertThat(result.getRole()).isEqualTo("MEMBER");
 
         verify(userRepository).findActiveByEmail("test@example.com");
-        verify(passwordEncoder).matches("password123", "hashedPassword");
-        verify(jwtUtil).generateToken("test@example.com", "MEMBER");
+        verify(passwordHasher).matches("password123", "hashedPassword");
+        verify(jwtUtil).generateToken(1L, "test@example.com", "MEMBER");
+        verify(loginAttempts).checkAllowed("test@example.com", "10.0.0.1");
+        verify(loginAttempts).recordSuccess("test@example.com");
     }
 
     @Test
@@ -142,12 +157,13 @@ class AuthServiceTest {
         when(userRepository.findActiveByEmail(anyString())).thenReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> authService.login(loginRequest))
+        assertThatThrownBy(() -> authService.login(loginRequest, "10.0.0.1"))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("Invalid email or password");
 
-        verify(passwordEncoder, never()).matches(anyString(), anyString());
-        verify(jwtUtil, never()).generateToken(anyString(), anyString());
+        verify(passwordHasher, never()).matches(anyString(), anyString());
+        verify(jwtUtil, never()).generateToken(anyLong(), anyString(), anyString());
+        verify(loginAttempts).recordFailure("nonexistent@example.com", "10.0.0.1");
     }
 
     @Test
@@ -159,13 +175,47 @@ class AuthServiceTest {
                 .build();
 
         when(userRepository.findActiveByEmail(anyString())).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        when(passwordHasher.matches(anyString(), anyString())).thenReturn(false);
 
         // When & Then
-        assertThatThrownBy(() -> authService.login(loginRequest))
+        assertThatThrownBy(() -> authService.login(loginRequest, "10.0.0.1"))
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("Invalid email or password");
 
-        verify(jwtUtil, never()).generateToken(anyString(), anyString());
+        verify(jwtUtil, never()).generateToken(anyLong(), anyString(), anyString());
+        verify(loginAttempts).recordFailure("test@example.com", "10.0.0.1");
+        verify(loginAttempts, never()).recordSuccess(anyString());
+    }
+
+    @Test
+    void shouldRefuseLogin_beforeLookup_whenThrottled() {
+        // Given
+        AuthDto.LoginRequest loginRequest = AuthDto.LoginRequest.builder()
+                .email("test@example.com")
+                .password("password123")
+                .build();
+
+        doThrow(new LoginThrottledException("Too many failed login attempts", 60))
+                .when(loginAttempts).checkAllowed("test@example.com", "10.0.0.1");
+
+        // When & Then
+        assertThatThrownBy(() -> authService.login(loginRequest, "10.0.0.1"))
+                .isInstanceOf(LoginThrottledException.class);
+
+        verify(userRepository, never()).findActiveByEmail(anyString());
+        verify(passwordHasher, never()).matches(anyString(), anyString());
+    }
+
+    @Test
+    void shouldRevokeCurrentToken_onLogout() {
+        // Given
+        JwtPrincipal principal = new JwtPrincipal(1L, "test@example.com", "MEMBER", "token-1",
+                Instant.now(), Instant.now().plusSeconds(60));
+
+        // When
+        authService.logout(new UsernamePasswordAuthenticationToken(principal, null, principal.authorities()));
+
+        // Then
+        verify(tokenRevocationStore).revoke(principal);
     }
 }
@@ -0,0 +1,199 @@
+package com.demandlane.booklending.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.repository.BookRepository;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+class AvailabilityHubTest {
+
+    private final Deque<Runnable> pending = new ArrayDeque<>();
+    private BookRepository bookRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private AvailabilityHub hub;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new AvailabilityHub(bookRepository, meterRegistry, 2, 60_000, pending::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldSendCurrentCount_toSubscribersWatchingBook() {
+        // Given
+        RecordingEmitter watcher = subscribe(1L);
+        RecordingEmitter other = subscribe(2L);
+        RecordingEmitter everything = subscribe();
+        when(bookRepository.findAllById(anyIterable())).thenReturn(List.of(book(1L, 2)));
+
+        // When
+        hub.publish(1L);
+        hub.flush();
+        runPending();
+
+        // Then
+        assertThat(watcher.events()).containsExactly(new BookDto.Availability(1L, 2L, 3L));
+        assertThat(everything.events()).containsExactly(new BookDto.Availability(1L, 2L, 3L));
+        assertThat(other.events()).isEmpty();
+        assertThat(watcher.comments).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPublishOnlyAfterCommit() {
+        // Given
+        RecordingEmitter emitter = subscribe(1L);
+        when(bookRepository.findAllById(anyIterable())).thenReturn(List.of(book(1L, 2)));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        hub.publish(1L);
+        hub.flush();
+
+        // Then
+        verifyNoInteractions(bookRepository);
+
+        // When
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        hub.flush();
+        runPending();
+
+        // Then
+        assertThat(emitter.events()).containsExactly(new BookDto.Availability(1L, 2L, 3L));
+    }
+
+    @Test
+    void shouldReadEachBookOnce_forBurstOfChanges() {
+        // Given
+        subscribe();
+        when(bookRepository.findAllById(anyIterable())).thenReturn(List.of(book(1L, 0)));
+
+        // When
+        hub.publish(1L);
+        hub.publish(1L);
+        hub.publish(1L);
+        hub.flush();
+        hub.flush();
+
+        // Then
+        verify(bookRepository, times(1)).findAllById(List.of(1L));
+    }
+
+    @Test
+    void shouldDropOldestEvents_whenSubscriberFallsBehind() {
+        // Given
+        RecordingEmitter emitter = subscribe(1L);
+        when(bookRepository.findAllById(anyIterable()))
+                .thenReturn(List.of(book(1L, 2)), List.of(book(1L, 1)), List.of(book(1L, 0)));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            hub.publish(1L);
+            hub.flush();
+        }
+        runPending();
+
+        // Then
+        assertThat(emitter.events()).extracting(BookDto.Availability::getAvailableCopies).containsExactly(1L, 0L);
+        assertThat(meterRegistry.get("library.availability-stream.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotReadBooks_whenNobodyIsSubscribed() {
+        // When
+        hub.publish(1L);
+        hub.flush();
+
+        // Then
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void shouldUnsubscribe_whenSendFails() {
+        // Given
+        RecordingEmitter emitter = subscribe(1L);
+        emitter.broken = true;
+
+        // When
+        hub.heartbeat();
+        runPending();
+
+        // Then
+        assertThat(hub.subscriberCount()).isZero();
+        assertThat(meterRegistry.get("library.availability-stream.subscribers").gauge().value()).isZero();
+    }
+
+    private RecordingEmitter subscribe(Long... bookIds) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.register(emitter, Set.of(bookIds));
+        return emitter;
+    }
+
+    private void runPending() {
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static Book book(Long id, long availableCopies) {
+        Book book = Book.builder()
+                .title("Dune")
+                .availableCopies(availableCopies)
+                .totalCopies(3L)
+                .build();
+        book.setId(id);
+        return book;
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<Object> sent = new ArrayList<>();
+        private int comments;
+        private boolean broken;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            builder.build().forEach(part -> {
+                sent.add(part.getData());
+                if (part.getData() instanceof String text && text.startsWith(":")) {
+                    comments++;
+                }
+            });
+        }
+
+        List<BookDto.Availability> events() {
+            return sent.stream()
+                    .filter(BookDto.Availability.class::isInstance)
+                    .map(BookDto.Availability.class::cast)
+                    .toList();
+        }
+    }
+}
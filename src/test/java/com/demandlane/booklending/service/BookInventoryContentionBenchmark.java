@@ -0,0 +1,102 @@
+package com.demandlane.booklending.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.demandlane.booklending.DemandlaneBookLendingApiApplication;
+import com.demandlane.booklending.dto.BookDto;
+
+/**
+ * Compares borrow/return throughput on one popular title with its copies on the {@code books} row
+ * ({@code slots = 0}) and split across slot rows. Every operation claims and releases a copy in its
+ * own transaction, from several threads at once, against the in-memory test database.
+ * <p>
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.demandlane.booklending.service.BookInventoryContentionBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class BookInventoryContentionBenchmark {
+
+    @Param({ "0", "8" })
+    public int slots;
+
+    private ConfigurableApplicationContext context;
+    private BookInventoryService inventory;
+    private TransactionTemplate transactionTemplate;
+    private Long bookId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemandlaneBookLendingApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("library.sharded-inventory-threshold=" + (slots == 0 ? 0 : 1),
+                            "library.sharded-inventory-slots=" + slots,
+                            "spring.datasource.url=jdbc:h2:mem:contention" + slots + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE")
+                .run();
+        inventory = context.getBean(BookInventoryService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        bookId = context.getBean(BookService.class).save(BookDto.Request.builder()
+                .title("Popular Title")
+                .author("Benchmark")
+                .isbn("BENCH-" + slots)
+                .totalCopies(1_000L)
+                .availableCopies(1_000L)
+                .build()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean borrowAndReturn() {
+        // Same id for the loan, so a sharded return goes back to the slot just claimed from
+        long userId = ThreadLocalRandom.current().nextLong(1, 10_000);
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            boolean claimed = inventory.claim(bookId, userId, now);
+            if (claimed) {
+                inventory.release(bookId, userId, now);
+            }
+            return claimed;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookInventoryContentionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -6,12 +6,14 @@ import com.demandlane.booklending.exception.ResourceNotFoundException;
 import com.demandlane.booklending.mapper.BookMapper;
 import com.demandlane.booklending.repository.BookRepository;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -19,6 +21,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 
+import tools.jackson.databind.json.JsonMapper;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -37,6 +41,18 @@ class BookServiceTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private BorrowAdmissionGate borrowGate;
+
+    @Mock
+    private BookInventoryService bookInventoryService;
+
+    @Mock
+    private AvailabilityHub availabilityHub;
+
+    @Spy
+    private CatalogCache catalogCache = new CatalogCache(new SimpleMeterRegistry(), new JsonMapper(), 100, 100, 60_000);
+
     @InjectMocks
     private BookService bookService;
 
@@ -101,7 +117,7 @@ class BookServiceTest {
         // Given
         Page<Book> bookPage = new PageImpl<>(List.of(book));
         Pageable pageable = PageRequest.of(0, 10);
-        BookDto.Filter filter = new BookDto.Filter("Clean Code", "Robert C. Martin", "9780132350884");
+        BookDto.Filter filter = new BookDto.Filter("Clean Code", "Robert C. Martin", "9780132350884", null);
 
         when(bookRepository.findAll(ArgumentMatchers.<Specification<Book>>any(), any(Pageable.class))).thenReturn(bookPage);
         when(bookMapper.toResponse(any(Book.class))).thenReturn(bookResponse);
@@ -151,6 +167,38 @@ class BookServiceTest {
         verify(bookMapper, never()).toResponse(any());
     }
 
+    @Test
+    void shouldServeRepeatedLookupFromCatalogCache() {
+        // Given
+        when(bookRepository.findActiveById(anyLong())).thenReturn(Optional.of(book));
+        when(bookMapper.toResponse(any(Book.class))).thenReturn(bookResponse);
+        bookService.findById(1L);
+
+        // When
+        BookDto.Response result = bookService.findById(1L);
+
+        // Then
+        assertThat(result).isSameAs(bookResponse);
+        verify(bookRepository, times(1)).findActiveById(1L);
+    }
+
+    @Test
+    void shouldReloadBook_afterItIsDeleted() {
+        // Given
+        when(bookRepository.findActiveById(anyLong())).thenReturn(Optional.of(book));
+        when(bookMapper.toResponse(any(Book.class))).thenReturn(bookResponse);
+        bookService.findById(1L);
+
+        // When
+        bookService.delete(1L);
+        when(bookRepository.findActiveById(anyLong())).thenReturn(Optional.empty());
+
+        // Then
+        assertThatThrownBy(() -> bookService.findById(1L))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(catalogCache).evictBook(1L);
+    }
+
     @Test
     void shouldSaveBook() {
         // Given
@@ -169,6 +217,7 @@ class BookServiceTest {
 
         verify(bookMapper).toEntity(bookRequest);
         verify(bookRepository).save(book);
+        verify(bookInventoryService).apply(book, null);
         verify(bookMapper).toResponse(book);
     }
 
@@ -207,7 +256,7 @@ class BookServiceTest {
         when(bookMapper.toResponse(any(Book.class))).thenReturn(updatedResponse);
 
         // When
-        BookDto.Response result = bookService.update(1L, updateRequest);
+        BookDto.Response result = bookService.update(1L, updateRequest, null);
 
         // Then
         assertThat(result).isNotNull();
@@ -218,8 +267,10 @@ class BookServiceTest {
 
         verify(bookRepository).findActiveById(1L);
         verify(bookMapper).updateEntity(book, updateRequest);
+        verify(bookInventoryService).apply(book, 12L);
         verify(bookRepository).save(book);
         verify(bookMapper).toResponse(updatedBook);
+        verify(borrowGate).invalidate(1L);
     }
 
     @Test
@@ -228,7 +279,7 @@ class BookServiceTest {
         when(bookRepository.findActiveById(anyLong())).thenReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> bookService.update(999L, bookRequest))
+        assertThatThrownBy(() -> bookService.update(999L, bookRequest, null))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("Book not found");
 
@@ -301,7 +352,7 @@ class BookServiceTest {
         when(bookMapper.toResponse(any(Book.class))).thenReturn(updatedResponse);
 
         // When
-        BookDto.Response result = bookService.update(1L, updateRequest);
+        BookDto.Response result = bookService.update(1L, updateRequest, null);
 
         // Then
         assertThat(result).isNotNull();
@@ -0,0 +1,184 @@
+package com.demandlane.booklending.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.demandlane.booklending.config.LibraryProperties;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.exception.BorrowingRuleViolationException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BorrowAdmissionGateTest {
+
+    private static final Long BOOK_ID = 1L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private BorrowAdmissionGate gate;
+
+    @BeforeEach
+    void setUp() {
+        LibraryProperties properties = new LibraryProperties();
+        properties.setBorrowGateStripes(4);
+        properties.setBorrowGateTtl(1_000);
+        meterRegistry = new SimpleMeterRegistry();
+        gate = new BorrowAdmissionGate(properties, meterRegistry, clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldAdmitBorrow_whenAvailabilityIsUnknown() {
+        // When
+        String result = gate.admit(BOOK_ID, () -> "loan");
+
+        // Then
+        assertThat(result).isEqualTo("loan");
+        assertThat(rejections("exhausted") + rejections("saturated")).isZero();
+    }
+
+    @Test
+    void shouldRejectWithoutRunningBorrow_whenBookIsKnownExhausted() {
+        // Given
+        gate.recordExhausted(book(1));
+        AtomicInteger borrows = new AtomicInteger();
+
+        // When / Then
+        assertThatThrownBy(() -> gate.admit(BOOK_ID, borrows::incrementAndGet))
+                .isInstanceOf(BorrowingRuleViolationException.class)
+                .hasMessage("The book 'Dune' has no available copies at this time.");
+        assertThat(borrows.get()).isZero();
+        assertThat(rejections("exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCapInFlightBorrows_atRemainingCopies() {
+        // Given
+        gate.recordAvailability(book(1));
+
+        // When / Then
+        String result = gate.admit(BOOK_ID, () -> {
+            assertThatThrownBy(() -> gate.admit(BOOK_ID, () -> "second"))
+                    .isInstanceOf(BorrowingRuleViolationException.class);
+            return "first";
+        });
+        assertThat(result).isEqualTo("first");
+        assertThat(rejections("saturated")).isEqualTo(1);
+        assertThat(gate.admit(BOOK_ID, () -> "third")).isEqualTo("third");
+    }
+
+    @Test
+    void shouldKeepBooksIndependent() {
+        // Given
+        gate.recordAvailability(book(0));
+
+        // When
+        String result = gate.admit(2L, () -> "other book");
+
+        // Then
+        assertThat(result).isEqualTo("other book");
+    }
+
+    @Test
+    void shouldAdmitAgain_afterInvalidation() {
+        // Given
+        gate.recordAvailability(book(0));
+
+        // When
+        gate.invalidate(BOOK_ID);
+
+        // Then
+        assertThat(gate.admit(BOOK_ID, () -> "loan")).isEqualTo("loan");
+    }
+
+    @Test
+    void shouldAdmitAgain_afterAvailabilityExpires() {
+        // Given
+        gate.recordAvailability(book(0));
+
+        // When
+        clock.addAndGet(2_000_000_000L);
+
+        // Then
+        assertThat(gate.admit(BOOK_ID, () -> "loan")).isEqualTo("loan");
+    }
+
+    @Test
+    void shouldSweepExpiredTitles_thatAreNotBorrowedAgain() {
+        // Given
+        for (long id = 1; id <= 100; id++) {
+            gate.recordAvailability(book(id, 1));
+        }
+
+        // When
+        clock.addAndGet(2_000_000_000L);
+        for (long id = 101; id <= 104; id++) {
+            gate.recordAvailability(book(id, 1));
+        }
+
+        // Then - each stripe swept its expired titles when it was next written
+        assertThat(gate.size()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldDeferInvalidation_untilTransactionCommits() {
+        // Given
+        gate.recordAvailability(book(0));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        gate.invalidate(BOOK_ID);
+
+        // Then
+        assertThatThrownBy(() -> gate.admit(BOOK_ID, () -> "loan"))
+                .isInstanceOf(BorrowingRuleViolationException.class);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(gate.admit(BOOK_ID, () -> "loan")).isEqualTo("loan");
+    }
+
+    @Test
+    void shouldReleaseInFlightSlot_whenBorrowFails() {
+        // Given
+        gate.recordAvailability(book(1));
+
+        // When
+        assertThatThrownBy(() -> gate.admit(BOOK_ID, () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(gate.admit(BOOK_ID, () -> "loan")).isEqualTo("loan");
+    }
+
+    private static Book book(long availableCopies) {
+        return book(BOOK_ID, availableCopies);
+    }
+
+    private static Book book(Long id, long availableCopies) {
+        Book book = Book.builder()
+                .title("Dune")
+                .availableCopies(availableCopies)
+                .totalCopies(3L)
+                .build();
+        book.setId(id);
+        return book;
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.get("library.borrow-gate.rejections").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,159 @@
+package com.demandlane.booklending.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.PageResponse;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CatalogCache(meterRegistry, new JsonMapper(), 100, 100, 60_000);
+    }
+
+    @Test
+    void shouldCacheFirstPage_perFilterAndSort() {
+        // When
+        page(new BookDto.Filter(), PageRequest.of(0, 10, Sort.by("id")), 1L);
+        page(new BookDto.Filter(), PageRequest.of(0, 10, Sort.by("id")), 1L);
+        page(new BookDto.Filter("Clean", null, null, null), PageRequest.of(0, 10, Sort.by("id")), 1L);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "catalog.pages").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldNotCacheLaterPages() {
+        // When
+        page(new BookDto.Filter(), PageRequest.of(1, 10), 1L);
+        page(new BookDto.Filter(), PageRequest.of(1, 10), 1L);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictOnlyPagesListingTheBook_whenAvailabilityChanges() {
+        // Given
+        page(new BookDto.Filter("Clean", null, null, null), PageRequest.of(0, 10), 1L);
+        page(new BookDto.Filter("Refactoring", null, null, null), PageRequest.of(0, 10), 2L);
+        page(new BookDto.Filter("Domain", null, null, null), PageRequest.of(0, 10, Sort.by("availableCopies")), 3L);
+
+        // When
+        cache.evictAvailability(1L);
+        page(new BookDto.Filter("Clean", null, null, null), PageRequest.of(0, 10), 1L);
+        page(new BookDto.Filter("Refactoring", null, null, null), PageRequest.of(0, 10), 2L);
+        page(new BookDto.Filter("Domain", null, null, null), PageRequest.of(0, 10, Sort.by("availableCopies")), 3L);
+
+        // Then - the page listing book 1 and the one sorted by availability were reloaded
+        assertThat(loads.get()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldEvictEveryPage_whenBookIsEdited() {
+        // Given
+        page(new BookDto.Filter("Clean", null, null, null), PageRequest.of(0, 10), 1L);
+        page(new BookDto.Filter("Refactoring", null, null, null), PageRequest.of(0, 10), 2L);
+        book(1L);
+
+        // When
+        cache.evictBook(1L);
+        page(new BookDto.Filter("Clean", null, null, null), PageRequest.of(0, 10), 1L);
+        page(new BookDto.Filter("Refactoring", null, null, null), PageRequest.of(0, 10), 2L);
+        book(1L);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldNotKeepPage_whoseLoadOverlappedAnEviction() throws Exception {
+        // Given - a first page still loading while a write evicts
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        CompletableFuture<Void> staleLoad = CompletableFuture.runAsync(() ->
+                cache.page(new BookDto.Filter(), PageRequest.of(0, 10), CountMode.EXACT, () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(evicted);
+                    return PageResponse.<BookDto.Response>builder().data(List.of(response(1L))).build();
+                }));
+        loading.await();
+
+        // When
+        cache.evictBook(1L);
+        evicted.countDown();
+        staleLoad.get(5, TimeUnit.SECONDS);
+        page(new BookDto.Filter(), PageRequest.of(0, 10), 1L);
+
+        // Then - the page loaded from before the write was not kept
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldServeSameJsonAndETag_untilBookIsEvicted() {
+        // Given
+        CatalogCache.SerializedBook first = cache.book(1L, () -> response(1L));
+
+        // When
+        CatalogCache.SerializedBook second = cache.book(1L, () -> response(1L));
+        cache.evictAvailability(1L);
+        CatalogCache.SerializedBook reloaded = cache.book(1L, () -> BookDto.Response.builder().id(1L).availableCopies(2L).build());
+
+        // Then
+        assertThat(second.json()).isSameAs(first.json());
+        assertThat(new String(first.json(), StandardCharsets.UTF_8)).contains("\"id\":1");
+        assertThat(first.etag()).startsWith("\"").endsWith("\"");
+        assertThat(reloaded.etag()).isNotEqualTo(first.etag());
+    }
+
+    private void page(BookDto.Filter filter, PageRequest pageable, Long bookId) {
+        cache.page(filter, pageable, CountMode.EXACT, () -> {
+            loads.incrementAndGet();
+            return PageResponse.<BookDto.Response>builder().data(List.of(response(bookId))).build();
+        });
+    }
+
+    private void book(Long bookId) {
+        cache.book(bookId, () -> {
+            loads.incrementAndGet();
+            return response(bookId);
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static BookDto.Response response(Long id) {
+        return BookDto.Response.builder().id(id).build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.demandlane.booklending.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.demandlane.booklending.config.LibraryProperties;
+import com.demandlane.booklending.exception.BorrowingRuleViolationException;
+import com.demandlane.booklending.exception.InvalidIdempotencyKeyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        LibraryProperties properties = new LibraryProperties();
+        properties.setIdempotencyTtl(1_000);
+        meterRegistry = new SimpleMeterRegistry();
+        store = new IdempotencyStore(properties, meterRegistry, clock::get);
+    }
+
+    @Test
+    void shouldRunEveryTime_whenNoKeyIsSent() {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+
+        // When
+        store.execute(1L, null, "borrow", 2L, runs::incrementAndGet);
+        IdempotencyStore.Outcome<Integer> second = store.execute(1L, null, "borrow", 2L, runs::incrementAndGet);
+
+        // Then
+        assertThat(runs.get()).isEqualTo(2);
+        assertThat(second.replayed()).isFalse();
+    }
+
+    @Test
+    void shouldReplayFirstResult_whenKeyIsRepeated() {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        store.execute(1L, "key", "borrow", 2L, runs::incrementAndGet);
+
+        // When
+        IdempotencyStore.Outcome<Integer> replay = store.execute(1L, "key", "borrow", 2L, runs::incrementAndGet);
+
+        // Then
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(replay.value()).isEqualTo(1);
+        assertThat(replay.replayed()).isTrue();
+        assertThat(meterRegistry.get("library.idempotency.replays").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldScopeKeysPerUser() {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        store.execute(1L, "key", "borrow", 2L, runs::incrementAndGet);
+
+        // When
+        IdempotencyStore.Outcome<Integer> other = store.execute(3L, "key", "borrow", 2L, runs::incrementAndGet);
+
+        // Then
+        assertThat(runs.get()).isEqualTo(2);
+        assertThat(other.replayed()).isFalse();
+    }
+
+    @Test
+    void shouldRunAgain_afterTtl() {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        store.execute(1L, "key", "borrow", 2L, runs::incrementAndGet);
+
+        // When
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_001));
+        store.execute(1L, "key", "borrow", 2L, runs::incrementAndGet);
+
+        // Then
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectKey_whenReusedForAnotherRequest() {
+        // Given
+        store.execute(1L, "key", "borrow", 2L, () -> "loan");
+
+        // When / Then
+        assertThatThrownBy(() -> store.execute(1L, "key", "borrow", 5L, () -> "other"))
+                .isInstanceOf(InvalidIdempotencyKeyException.class);
+        assertThatThrownBy(() -> store.execute(1L, "key", "return", 2L, () -> "other"))
+                .isInstanceOf(InvalidIdempotencyKeyException.class);
+    }
+
+    @Test
+    void shouldRejectOverlongKey() {
+        String key = "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1);
+
+        assertThatThrownBy(() -> store.execute(1L, key, "borrow", 2L, () -> "loan"))
+                .isInstanceOf(InvalidIdempotencyKeyException.class);
+    }
+
+    @Test
+    void shouldRunAgain_afterFailure() {
+        // Given
+        assertThatThrownBy(() -> store.execute(1L, "key", "borrow", 2L, () -> {
+            throw new BorrowingRuleViolationException("No copies");
+        })).isInstanceOf(BorrowingRuleViolationException.class);
+
+        // When
+        IdempotencyStore.Outcome<String> retry = store.execute(1L, "key", "borrow", 2L, () -> "loan");
+
+        // Then
+        assertThat(retry.value()).isEqualTo("loan");
+        assertThat(retry.replayed()).isFalse();
+    }
+
+    @Test
+    void shouldCoalesceConcurrentDuplicates_ontoFirstExecution() throws Exception {
+        // Given - the first execution is still running
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<IdempotencyStore.Outcome<Integer>> first = CompletableFuture.supplyAsync(() ->
+                store.execute(1L, "key", "borrow", 2L, () -> {
+                    started.countDown();
+                    await(release);
+                    return runs.incrementAndGet();
+                }));
+        started.await();
+
+        // When
+        CompletableFuture<IdempotencyStore.Outcome<Integer>> duplicate = CompletableFuture.supplyAsync(() ->
+                store.execute(1L, "key", "borrow", 2L, runs::incrementAndGet));
+        release.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS).value()).isEqualTo(1);
+        IdempotencyStore.Outcome<Integer> coalesced = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(coalesced.value()).isEqualTo(1);
+        assertThat(coalesced.replayed()).isTrue();
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.demandlane.booklending.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.demandlane.booklending.config.LibraryProperties;
+import com.demandlane.booklending.exception.BorrowingRuleViolationException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InventoryRetryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryRetry inventoryRetry;
+
+    @BeforeEach
+    void setUp() {
+        LibraryProperties properties = new LibraryProperties();
+        properties.setInventoryRetryMaxRetries(2);
+        properties.setInventoryRetryDelay(1);
+        properties.setInventoryRetryMaxDelay(2);
+        properties.setInventoryConflictTaggedBooks(1);
+        meterRegistry = new SimpleMeterRegistry();
+        inventoryRetry = new InventoryRetry(properties, meterRegistry);
+    }
+
+    @Test
+    void shouldRerunWork_afterOptimisticLockConflict() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        String result = inventoryRetry.run("borrow", 7L, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new OptimisticLockingFailureException("stale book");
+            }
+            return "done";
+        });
+
+        // Then
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(conflicts("borrow", "7", "retried")).isEqualTo(1);
+        assertThat(conflicts("borrow", "7", "recovered")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRethrowConflict_whenRetriesAreExhausted() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When / Then
+        assertThatThrownBy(() -> inventoryRetry.run("return", null, () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale loan");
+        }))
+                .isInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessage("stale loan");
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(conflicts("return", InventoryRetry.UNKNOWN_BOOK, "retried")).isEqualTo(2);
+        assertThat(conflicts("return", InventoryRetry.UNKNOWN_BOOK, "exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotRetry_otherExceptions() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When / Then
+        assertThatThrownBy(() -> inventoryRetry.run("borrow", 7L, () -> {
+            attempts.incrementAndGet();
+            throw new BorrowingRuleViolationException("No available copies");
+        }))
+                .isInstanceOf(BorrowingRuleViolationException.class);
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(meterRegistry.find(InventoryRetry.CONFLICTS_METRIC).counters()).isEmpty();
+    }
+
+    @Test
+    void shouldGroupBooksBeyondTagLimit_asOther() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        for (long bookId : new long[] { 1L, 2L }) {
+            attempts.set(0);
+            inventoryRetry.run("borrow", bookId, () -> {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new OptimisticLockingFailureException("stale book");
+                }
+                return bookId;
+            });
+        }
+
+        // Then
+        assertThat(conflicts("borrow", "1", "retried")).isEqualTo(1);
+        assertThat(conflicts("borrow", InventoryRetry.OTHER_BOOKS, "retried")).isEqualTo(1);
+    }
+
+    private double conflicts(String operation, String book, String outcome) {
+        return meterRegistry.get(InventoryRetry.CONFLICTS_METRIC)
+                .tag("operation", operation)
+                .tag("book", book)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+}
@@ -0,0 +1,158 @@
+package com.demandlane.booklending.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.demandlane.booklending.dto.CountMode;
+import com.demandlane.booklending.dto.CursorPageResponse;
+import com.demandlane.booklending.dto.LoanDto;
+import com.demandlane.booklending.dto.PageResponse;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.entity.Loan;
+import com.demandlane.booklending.entity.Role;
+import com.demandlane.booklending.entity.User;
+import com.demandlane.booklending.repository.BookRepository;
+import com.demandlane.booklending.repository.LoanRepository;
+import com.demandlane.booklending.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Guards against N+1 lazy loads when mapping loans: the number of statements a listing
+ * issues must not grow with the page size.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LoanServiceQueryCountTest {
+
+    private static final int LOANS = 20;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long firstLoanId;
+
+    @BeforeEach
+    void setUp() {
+        // Every loan gets its own user and book, so each lazy load would be a separate select
+        for (int i = 0; i < LOANS; i++) {
+            User user = userRepository.save(User.builder()
+                    .name("User " + i)
+                    .email("user" + i + "@example.com")
+                    .password("password123")
+                    .role(Role.MEMBER)
+                    .build());
+            Book book = bookRepository.save(Book.builder()
+                    .title("Book " + i)
+                    .author("Author " + i)
+                    .isbn("ISBN-" + i)
+                    .totalCopies(1L)
+                    .availableCopies(1L)
+                    .build());
+            Loan loan = loanRepository.save(Loan.builder()
+                    .user(user)
+                    .book(book)
+                    .borrowedAt(LocalDateTime.now())
+                    .dueDate(LocalDateTime.now().plusDays(14))
+                    .build());
+            if (firstLoanId == null) {
+                firstLoanId = loan.getId();
+            }
+        }
+        entityManager.flush();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void shouldListLoansWithConstantStatementCount() {
+        long small = statementsFor(() -> loanService.findAll(new LoanDto.Filter(), PageRequest.of(0, 5)));
+        long large = statementsFor(() -> loanService.findAll(new LoanDto.Filter(), PageRequest.of(0, LOANS)));
+
+        // page query + count query
+        assertThat(small).isEqualTo(2);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void shouldListLoansWithoutCountInOneStatement() {
+        long small = statementsFor(() -> loanService.findAll(new LoanDto.Filter(), PageRequest.of(0, 5), CountMode.NONE));
+        long large = statementsFor(() -> loanService.findAll(new LoanDto.Filter(), PageRequest.of(0, LOANS), CountMode.NONE));
+
+        assertThat(small).isEqualTo(1);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void shouldListLoansByCursorInOneStatement() {
+        long small = statementsFor(() -> loanService.findAllByCursor(new LoanDto.Filter(), null, PageRequest.of(0, 5)));
+        long large = statementsFor(() -> loanService.findAllByCursor(new LoanDto.Filter(), null, PageRequest.of(0, LOANS)));
+
+        assertThat(small).isEqualTo(1);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void shouldLookUpLoanInOneStatement() {
+        UsernamePasswordAuthenticationToken admin = new UsernamePasswordAuthenticationToken(
+                "admin@example.com", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+
+        long statements = statementsFor(() -> loanService.findById(firstLoanId, admin));
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    /**
+     * Runs the call against an empty persistence context, maps every row, and returns the number of
+     * prepared statements it issued.
+     */
+    private long statementsFor(Supplier<?> call) {
+        entityManager.clear();
+        statistics.clear();
+
+        Object result = call.get();
+        if (result instanceof Page<?> page) {
+            assertThat(page.getContent()).isNotEmpty();
+        } else if (result instanceof PageResponse<?> page) {
+            assertThat(page.getData()).isNotEmpty();
+        } else if (result instanceof CursorPageResponse<?> page) {
+            assertThat(page.getData()).isNotEmpty();
+        }
+
+        return statistics.getPrepareStatementCount();
+    }
+}
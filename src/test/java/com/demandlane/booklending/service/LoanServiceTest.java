@@ -1,15 +1,19 @@
 package com.demandlane.booklending.service;
 
+import com.demandlane.booklending.config.LibraryProperties;
 import com.demandlane.booklending.dto.LoanDto;
 import com.demandlane.booklending.entity.Book;
 import com.demandlane.booklending.entity.Loan;
 import com.demandlane.booklending.entity.Role;
 import com.demandlane.booklending.entity.User;
+import com.demandlane.booklending.entity.UserLoanSummary;
+import com.demandlane.booklending.exception.BorrowingRuleViolationException;
 import com.demandlane.booklending.exception.ResourceNotFoundException;
 import com.demandlane.booklending.mapper.LoanMapper;
 import com.demandlane.booklending.repository.BookRepository;
 import com.demandlane.booklending.repository.LoanRepository;
 import com.demandlane.booklending.repository.UserRepository;
+import com.demandlane.booklending.security.JwtPrincipal;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,9 +28,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -52,6 +58,18 @@ class LoanServiceTest {
     @Mock
     private LoanMapper loanMapper;
 
+    @Mock
+    private LibraryProperties libraryProperties;
+
+    @Mock
+    private LoanSummaryService loanSummaryService;
+
+    @Mock
+    private BorrowAdmissionGate borrowGate;
+
+    @Mock
+    private BookInventoryService bookInventoryService;
+
     @InjectMocks
     private LoanService loanService;
 
@@ -196,6 +214,23 @@ class LoanServiceTest {
         verify(loanMapper).toResponse(loan);
     }
 
+    @Test
+    void shouldFindLoanById_usingUserIdFromToken() {
+        // Given - the requester id comes from the token, not from a user lookup
+        JwtPrincipal principal = new JwtPrincipal(1L, "john@example.com", "MEMBER", "token-1", Instant.now(), Instant.now().plusSeconds(60));
+        Authentication auth = new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+
+        when(loanRepository.findActiveById(anyLong())).thenReturn(Optional.of(loan));
+        when(loanMapper.toResponse(any(Loan.class))).thenReturn(loanResponse);
+
+        // When
+        LoanDto.Response result = loanService.findById(1L, auth);
+
+        // Then
+        assertThat(result).isNotNull();
+        verify(userRepository, never()).findActiveByEmail(any());
+    }
+
     @Test
     void shouldThrowAccessDenied_whenMemberAccessesOtherUsersLoan() {
         // Given - member trying to access another user's loan
@@ -372,6 +407,7 @@ class LoanServiceTest {
         verify(loanRepository).findActiveById(1L);
         verify(loanRepository).save(loan);
         assertThat(loan.getDeletedAt()).isNotNull();
+        verify(loanSummaryService).refresh(user.getId());
     }
 
     @Test
@@ -416,5 +452,131 @@ class LoanServiceTest {
         // Then
         verify(userRepository).findActiveById(3L);
         verify(loanRepository).save(loan);
+        verify(loanSummaryService).refresh(3L);
+        verify(loanSummaryService).refresh(1L);
+    }
+
+    @Test
+    void shouldBorrowBook_whenSlotAndCopyAreClaimed() {
+        // Given
+        when(libraryProperties.getLoanDurationDays()).thenReturn(14);
+        when(loanSummaryService.claimSlot(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(bookInventoryService.claim(eq(2L), eq(1L), any(LocalDateTime.class))).thenReturn(true);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(bookRepository.getReferenceById(2L)).thenReturn(book);
+        when(loanRepository.save(any(Loan.class))).thenReturn(loan);
+        when(loanMapper.toResponse(any(Loan.class))).thenReturn(loanResponse);
+
+        // When
+        LoanDto.Response result = loanService.borrowBook(1L, 2L);
+
+        // Then
+        assertThat(result).isNotNull();
+        verify(loanRepository).save(argThat(l -> l.getUser() == user && l.getBook() == book
+                && l.getDueDate().equals(l.getBorrowedAt().plusDays(14))));
+        verify(loanSummaryService).claimSlot(eq(1L), argThat(due -> due.isAfter(LocalDateTime.now().plusDays(13))),
+                any(LocalDateTime.class));
+        verify(userRepository, never()).findActiveById(any());
+        verify(bookRepository, never()).findActiveById(any());
+        verify(loanSummaryService, never()).find(any());
+        verify(borrowGate).recordAvailability(loan.getBook());
+    }
+
+    @Test
+    void shouldNotRecordAggregateAvailability_whenBorrowingShardedBook() {
+        // Given
+        book.setInventorySlots(8);
+        when(libraryProperties.getLoanDurationDays()).thenReturn(14);
+        when(loanSummaryService.claimSlot(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(bookInventoryService.claim(eq(2L), eq(1L), any(LocalDateTime.class))).thenReturn(true);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(bookRepository.getReferenceById(2L)).thenReturn(book);
+        when(loanRepository.save(any(Loan.class))).thenReturn(loan);
+        when(loanMapper.toResponse(any(Loan.class))).thenReturn(loanResponse);
+
+        // When
+        loanService.borrowBook(1L, 2L);
+
+        // Then
+        verify(borrowGate, never()).recordAvailability(any());
+    }
+
+    @Test
+    void shouldReportMaxActiveLoans_whenSlotIsRejected() {
+        // Given
+        when(libraryProperties.getMaxActiveLoans()).thenReturn(5);
+        when(loanSummaryService.claimSlot(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(false);
+        when(userRepository.findActiveById(1L)).thenReturn(Optional.of(user));
+        when(bookRepository.findActiveById(2L)).thenReturn(Optional.of(book));
+        when(loanSummaryService.find(1L)).thenReturn(Optional.of(summary(5, null)));
+
+        // When & Then
+        assertThatThrownBy(() -> loanService.borrowBook(1L, 2L))
+                .isInstanceOf(BorrowingRuleViolationException.class)
+                .hasMessageContaining("maximum number of active loans (5)");
+
+        verify(bookInventoryService, never()).claim(any(), any(), any());
+        verify(loanRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldReportOverdueLoans_whenSlotIsRejected() {
+        // Given
+        when(libraryProperties.getMaxActiveLoans()).thenReturn(5);
+        when(loanSummaryService.claimSlot(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(false);
+        when(userRepository.findActiveById(1L)).thenReturn(Optional.of(user));
+        when(bookRepository.findActiveById(2L)).thenReturn(Optional.of(book));
+        when(loanSummaryService.find(1L)).thenReturn(Optional.of(summary(1, LocalDateTime.now().minusDays(1))));
+
+        // When & Then
+        assertThatThrownBy(() -> loanService.borrowBook(1L, 2L))
+                .isInstanceOf(BorrowingRuleViolationException.class)
+                .hasMessage("You have overdue loans. Please return them before borrowing more books.");
+
+        verify(loanRepository, never()).countActiveLoans(any());
+        verify(loanRepository, never()).hasOverdueLoans(any(), any());
+    }
+
+    @Test
+    void shouldReportNoAvailableCopies_whenLastCopyWasClaimedConcurrently() {
+        // Given - the slot is claimed, but another borrower took the last copy
+        book.setAvailableCopies(1L);
+        when(loanSummaryService.claimSlot(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(bookInventoryService.claim(eq(2L), eq(1L), any(LocalDateTime.class))).thenReturn(false);
+        when(bookRepository.findActiveById(2L)).thenReturn(Optional.of(book));
+
+        // When & Then
+        assertThatThrownBy(() -> loanService.borrowBook(1L, 2L))
+                .isInstanceOf(BorrowingRuleViolationException.class)
+                .hasMessage("The book 'Clean Code' has no available copies at this time.");
+
+        verify(loanRepository, never()).save(any());
+        verify(borrowGate).recordExhausted(book);
+    }
+
+    @Test
+    void shouldRefreshSummary_whenBookIsReturned() {
+        // Given
+        loan.setReturnedAt(null);
+        when(loanRepository.findActiveById(1L)).thenReturn(Optional.of(loan));
+        when(loanRepository.saveAndFlush(loan)).thenReturn(loan);
+        when(loanMapper.toResponse(loan)).thenReturn(loanResponse);
+
+        // When
+        loanService.returnBook(1L);
+
+        // Then
+        verify(bookInventoryService).release(eq(book.getId()), eq(1L), any(LocalDateTime.class));
+        verify(loanSummaryService).refresh(user.getId());
+        verify(borrowGate).invalidate(book.getId());
+    }
+
+    private UserLoanSummary summary(long activeLoans, LocalDateTime earliestDueDate) {
+        return UserLoanSummary.builder()
+                .userId(1L)
+                .activeLoans(activeLoans)
+                .earliestDueDate(earliestDueDate)
+                .updatedAt(LocalDateTime.now())
+                .build();
     }
 }
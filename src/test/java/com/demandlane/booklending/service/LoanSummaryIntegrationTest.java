@@ -0,0 +1,153 @@
+package com.demandlane.booklending.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.demandlane.booklending.dto.LoanDto;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.entity.Loan;
+import com.demandlane.booklending.entity.Role;
+import com.demandlane.booklending.entity.User;
+import com.demandlane.booklending.entity.UserLoanSummary;
+import com.demandlane.booklending.repository.BookRepository;
+import com.demandlane.booklending.repository.LoanRepository;
+import com.demandlane.booklending.repository.UserLoanSummaryRepository;
+import com.demandlane.booklending.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LoanSummaryIntegrationTest {
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanSummaryReconciler reconciler;
+
+    @Autowired
+    private UserLoanSummaryRepository summaryRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("John Doe")
+                .email("john@example.com")
+                .password("password123")
+                .role(Role.MEMBER)
+                .build());
+        book = bookRepository.save(Book.builder()
+                .title("Clean Code")
+                .author("Robert Martin")
+                .isbn("9780132350884")
+                .totalCopies(5L)
+                .availableCopies(5L)
+                .build());
+    }
+
+    @Test
+    void shouldTrackBorrowsAndReturns() {
+        // When
+        LoanDto.Response first = loanService.borrowBook(user.getId(), book.getId());
+        LoanDto.Response second = loanService.borrowBook(user.getId(), book.getId());
+
+        // Then
+        UserLoanSummary afterBorrows = summaryRepository.findById(user.getId()).orElseThrow();
+        assertThat(afterBorrows.getActiveLoans()).isEqualTo(2);
+        assertThat(afterBorrows.getEarliestDueDate()).isCloseTo(first.getDueDate(), within(1, ChronoUnit.MICROS));
+
+        // When
+        loanService.returnBook(first.getId());
+
+        // Then
+        UserLoanSummary afterReturn = summaryRepository.findById(user.getId()).orElseThrow();
+        assertThat(afterReturn.getActiveLoans()).isEqualTo(1);
+        assertThat(afterReturn.getEarliestDueDate()).isCloseTo(second.getDueDate(), within(1, ChronoUnit.MICROS));
+    }
+
+    @Test
+    void shouldBuildMissingSummaryFromExistingLoans() {
+        // Given - a loan recorded before the user had a summary
+        loanRepository.save(openLoan(LocalDateTime.now().plusDays(3)));
+        assertThat(summaryRepository.findById(user.getId())).isEmpty();
+
+        // When
+        loanService.borrowBook(user.getId(), book.getId());
+
+        // Then
+        assertThat(summaryRepository.findById(user.getId()).orElseThrow().getActiveLoans()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRefreshSummary_whenLoanIsDeleted() {
+        // Given
+        LoanDto.Response borrowed = loanService.borrowBook(user.getId(), book.getId());
+
+        // When
+        loanService.delete(borrowed.getId());
+
+        // Then
+        UserLoanSummary summary = summaryRepository.findById(user.getId()).orElseThrow();
+        assertThat(summary.getActiveLoans()).isZero();
+        assertThat(summary.getEarliestDueDate()).isNull();
+    }
+
+    @Test
+    void shouldCorrectDriftedSummaries() {
+        // Given - a loan written behind the summary's back
+        loanService.borrowBook(user.getId(), book.getId());
+        LocalDateTime overdue = LocalDateTime.now().minusDays(1).withNano(0);
+        loanRepository.save(openLoan(overdue));
+        entityManager.flush();
+
+        // When
+        LoanSummaryReconciler.Report report = reconciler.reconcile();
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertThat(report.summariesCorrected()).isEqualTo(1);
+        UserLoanSummary summary = summaryRepository.findById(user.getId()).orElseThrow();
+        assertThat(summary.getActiveLoans()).isEqualTo(2);
+        assertThat(summary.getEarliestDueDate()).isEqualTo(overdue);
+
+        // And a second pass finds nothing to fix
+        assertThat(reconciler.reconcile().summariesCorrected()).isZero();
+    }
+
+    private Loan openLoan(LocalDateTime dueDate) {
+        return Loan.builder()
+                .user(user)
+                .book(book)
+                .borrowedAt(dueDate.minusDays(14))
+                .dueDate(dueDate)
+                .build();
+    }
+}
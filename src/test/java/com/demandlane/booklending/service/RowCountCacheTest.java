@@ -0,0 +1,81 @@
+package com.demandlane.booklending.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.entity.User;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowCountCacheTest {
+
+    private RowCountCache rowCountCache;
+
+    @BeforeEach
+    void setUp() {
+        rowCountCache = new RowCountCache(new SimpleMeterRegistry(), 60_000, 600_000, 100);
+    }
+
+    @Test
+    void shouldCountOnce_andServeCachedEstimateAfterwards() {
+        // Given
+        AtomicLong calls = new AtomicLong();
+        BookDto.Filter filter = new BookDto.Filter();
+        filter.setTitle("clean");
+
+        // When
+        RowCountCache.Estimate first = rowCountCache.lookup(Book.class, filter, () -> {
+            calls.incrementAndGet();
+            return 42;
+        });
+        BookDto.Filter sameFilter = new BookDto.Filter();
+        sameFilter.setTitle("clean");
+        RowCountCache.Estimate second = rowCountCache.lookup(Book.class, sameFilter, () -> {
+            calls.incrementAndGet();
+            return 99;
+        });
+
+        // Then
+        assertThat(first.total()).isEqualTo(42);
+        assertThat(first.exact()).isTrue();
+        assertThat(second.total()).isEqualTo(42);
+        assertThat(second.exact()).isFalse();
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepSeparateCounts_perEntityAndFilter() {
+        // Given
+        BookDto.Filter filter = new BookDto.Filter();
+        filter.setTitle("clean");
+
+        // When
+        rowCountCache.lookup(Book.class, null, () -> 10);
+        RowCountCache.Estimate filtered = rowCountCache.lookup(Book.class, filter, () -> 2);
+        RowCountCache.Estimate users = rowCountCache.lookup(User.class, null, () -> 5);
+
+        // Then
+        assertThat(filtered.total()).isEqualTo(2);
+        assertThat(users.total()).isEqualTo(5);
+        assertThat(rowCountCache.lookup(Book.class, null, () -> 0).total()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldRecount_afterInvalidateAll() {
+        // Given
+        rowCountCache.lookup(Book.class, null, () -> 10);
+
+        // When
+        rowCountCache.invalidateAll();
+        RowCountCache.Estimate estimate = rowCountCache.lookup(Book.class, null, () -> 11);
+
+        // Then
+        assertThat(estimate.total()).isEqualTo(11);
+        assertThat(estimate.exact()).isTrue();
+    }
+}
@@ -0,0 +1,142 @@
+package com.demandlane.booklending.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.entity.BookInventorySlot;
+import com.demandlane.booklending.repository.BookInventorySlotRepository;
+import com.demandlane.booklending.repository.BookRepository;
+
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest(properties = {
+        "library.sharded-inventory-threshold=10",
+        "library.sharded-inventory-slots=4"
+})
+@ActiveProfiles("test")
+@Transactional
+class ShardedInventoryIntegrationTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookInventoryService bookInventoryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookInventorySlotRepository slotRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        bookId = bookService.save(request(10L, 10L)).getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void shouldSplitCopiesAcrossSlots_whenTotalCopiesReachThreshold() {
+        // Then
+        assertThat(bookRepository.findById(bookId).orElseThrow().getInventorySlots()).isEqualTo(4);
+        assertThat(slots()).extracting(BookInventorySlot::getAvailableCopies).containsExactly(3L, 3L, 2L, 2L);
+    }
+
+    @Test
+    void shouldKeepSingleRow_whenTotalCopiesAreBelowThreshold() {
+        // When
+        Long smallBookId = bookService.save(BookDto.Request.builder()
+                .title("Refactoring")
+                .author("Martin Fowler")
+                .isbn("9780134757599")
+                .totalCopies(9L)
+                .availableCopies(9L)
+                .build()).getId();
+        entityManager.flush();
+
+        // Then
+        assertThat(bookRepository.findById(smallBookId).orElseThrow().getInventorySlots()).isZero();
+        assertThat(slotRepository.lockAllByBookId(smallBookId)).isEmpty();
+    }
+
+    @Test
+    void shouldFallBackToSiblingSlots_untilEveryCopyIsClaimed() {
+        LocalDateTime now = LocalDateTime.now();
+
+        // When - the same user always hashes to the same slot first
+        for (int i = 0; i < 10; i++) {
+            assertThat(bookInventoryService.claim(bookId, 1L, now)).isTrue();
+        }
+
+        // Then
+        assertThat(bookInventoryService.claim(bookId, 1L, now)).isFalse();
+        assertThat(slots()).extracting(BookInventorySlot::getAvailableCopies).containsOnly(0L);
+    }
+
+    @Test
+    void shouldRefreshAggregate_afterClaimsAndReleases() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        bookInventoryService.claim(bookId, 1L, now);
+        bookInventoryService.claim(bookId, 2L, now);
+        bookInventoryService.release(bookId, 7L, now);
+        bookInventoryService.claim(bookId, 3L, now);
+
+        // When
+        bookInventoryService.refreshAggregates();
+        entityManager.clear();
+
+        // Then
+        assertThat(bookRepository.findById(bookId).orElseThrow().getAvailableCopies()).isEqualTo(8L);
+    }
+
+    @Test
+    void shouldMoveBackToSingleRow_whenTotalCopiesDropBelowThreshold() {
+        // Given
+        bookInventoryService.claim(bookId, 1L, LocalDateTime.now());
+        entityManager.clear();
+
+        // When
+        bookService.update(bookId, BookDto.Request.builder().totalCopies(5L).build(), null);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        assertThat(book.getInventorySlots()).isZero();
+        assertThat(book.getAvailableCopies()).isEqualTo(9L);
+        assertThat(slots()).isEmpty();
+    }
+
+    private List<BookInventorySlot> slots() {
+        entityManager.clear();
+        return slotRepository.lockAllByBookId(bookId);
+    }
+
+    private static BookDto.Request request(Long totalCopies, Long availableCopies) {
+        return BookDto.Request.builder()
+                .title("Clean Code")
+                .author("Robert Martin")
+                .isbn("9780132350884")
+                .totalCopies(totalCopies)
+                .availableCopies(availableCopies)
+                .build();
+    }
+}
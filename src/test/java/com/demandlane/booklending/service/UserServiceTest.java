@@ -5,6 +5,8 @@ import com.demandlane.booklending.entity.User;
 import com.demandlane.booklending.exception.ResourceNotFoundException;
 import com.demandlane.booklending.mapper.UserMapper;
 import com.demandlane.booklending.repository.UserRepository;
+import com.demandlane.booklending.security.DeletedUserRegistry;
+import com.demandlane.booklending.security.TokenRevocationStore;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -37,6 +39,12 @@ class UserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private DeletedUserRegistry deletedUserRegistry;
+
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+
     @InjectMocks
     private UserService userService;
 
@@ -202,6 +210,8 @@ class UserServiceTest {
         // Then
         verify(userRepository).findActiveById(1L);
         verify(userRepository).save(user);
+        verify(deletedUserRegistry).markDeleted(1L);
+        verify(tokenRevocationStore).revokeAllForUser(1L);
         assertThat(user.getDeletedAt()).isNotNull();
     }
 
@@ -217,5 +227,29 @@ class UserServiceTest {
 
         verify(userRepository).findActiveById(999L);
         verify(userRepository, never()).save(any());
+        verify(deletedUserRegistry, never()).markDeleted(any());
+    }
+
+    @Test
+    void shouldRevokeAllTokensOfUser() {
+        // Given
+        when(userRepository.findActiveById(anyLong())).thenReturn(Optional.of(user));
+
+        // When
+        userService.revokeTokens(1L);
+
+        // Then
+        verify(tokenRevocationStore).revokeAllForUser(1L);
+    }
+
+    @Test
+    void shouldThrowException_whenRevokingTokensOfNonExistentUser() {
+        // Given
+        when(userRepository.findActiveById(anyLong())).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> userService.revokeTokens(999L))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(tokenRevocationStore, never()).revokeAllForUser(any());
     }
 }
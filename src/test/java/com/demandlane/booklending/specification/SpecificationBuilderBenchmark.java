@@ -0,0 +1,142 @@
+package com.demandlane.booklending.specification;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.dto.LoanDto;
+import com.demandlane.booklending.dto.UserDto;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.entity.Loan;
+import com.demandlane.booklending.entity.User;
+
+/**
+ * Compares the per-request reflective filter walk with the precompiled filter plans.
+ * <p>
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.demandlane.booklending.specification.SpecificationBuilderBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecificationBuilderBenchmark {
+
+    private final BookDto.Filter bookFilter = new BookDto.Filter("clean", "martin", null, null);
+    private final UserDto.Filter userFilter = new UserDto.Filter("john", null, "member", null);
+    private final LoanDto.Filter loanFilter = new LoanDto.Filter(1L, 2L);
+
+    @Benchmark
+    public Specification<Book> bookReflective() {
+        return ReflectiveSpecificationBuilder.fromFilter(bookFilter, Book.class);
+    }
+
+    @Benchmark
+    public Specification<Book> bookCompiled() {
+        return SpecificationBuilder.fromFilter(bookFilter, Book.class);
+    }
+
+    @Benchmark
+    public Specification<User> userReflective() {
+        return ReflectiveSpecificationBuilder.fromFilter(userFilter, User.class);
+    }
+
+    @Benchmark
+    public Specification<User> userCompiled() {
+        return SpecificationBuilder.fromFilter(userFilter, User.class);
+    }
+
+    @Benchmark
+    public Specification<Loan> loanReflective() {
+        return ReflectiveSpecificationBuilder.fromFilter(loanFilter, Loan.class);
+    }
+
+    @Benchmark
+    public Specification<Loan> loanCompiled() {
+        return SpecificationBuilder.fromFilter(loanFilter, Loan.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SpecificationBuilderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Baseline: the reflective implementation that walked the filter class on every call.
+     */
+    static class ReflectiveSpecificationBuilder {
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        static <T> Specification<T> fromFilter(Object filter, Class<T> entityClass) {
+            Specification<T> spec = (root, query, cb) -> cb.isNull(root.get("deletedAt"));
+
+            for (Field filterField : filter.getClass().getDeclaredFields()) {
+                try {
+                    filterField.setAccessible(true);
+                    Object value = filterField.get(filter);
+                    if (value == null) continue;
+                    if (value instanceof String && ((String) value).isBlank()) continue;
+
+                    final String fieldName = filterField.getName();
+                    final String actualFieldName;
+                    final boolean isRelationshipId;
+                    if (fieldName.endsWith("Id") && findField(entityClass, fieldName.substring(0, fieldName.length() - 2)) != null) {
+                        actualFieldName = fieldName.substring(0, fieldName.length() - 2);
+                        isRelationshipId = true;
+                    } else {
+                        actualFieldName = fieldName;
+                        isRelationshipId = false;
+                    }
+
+                    Field entityField = findField(entityClass, actualFieldName);
+                    if (entityField == null) continue;
+                    Class<?> entityFieldType = entityField.getType();
+
+                    if (isRelationshipId) {
+                        final Long longValue = Long.parseLong(value.toString());
+                        spec = spec.and((root, query, cb) -> cb.equal(root.get(actualFieldName).get("id"), longValue));
+                    } else if (String.class.equals(entityFieldType)) {
+                        final String stringValue = (String) value;
+                        spec = spec.and((root, query, cb) ->
+                                cb.like(cb.lower(root.get(actualFieldName)), "%" + stringValue.toLowerCase() + "%"));
+                    } else if (entityFieldType.isEnum()) {
+                        final Object enumValue = Enum.valueOf((Class<Enum>) entityFieldType, value.toString().toUpperCase());
+                        spec = spec.and((root, query, cb) -> cb.equal(root.get(actualFieldName), enumValue));
+                    }
+                } catch (IllegalAccessException e) {
+                    // Skip fields that cannot be accessed
+                }
+            }
+            return spec;
+        }
+
+        private static Field findField(Class<?> clazz, String fieldName) {
+            Class<?> current = clazz;
+            while (current != null && !Object.class.equals(current)) {
+                try {
+                    return current.getDeclaredField(fieldName);
+                } catch (NoSuchFieldException e) {
+                    current = current.getSuperclass();
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.demandlane.booklending.specification;
+
+import org.junit.jupiter.api.Test;
+
+import com.demandlane.booklending.dto.BookDto;
+import com.demandlane.booklending.dto.LoanDto;
+import com.demandlane.booklending.dto.UserDto;
+import com.demandlane.booklending.entity.Book;
+import com.demandlane.booklending.entity.Loan;
+import com.demandlane.booklending.entity.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpecificationBuilderTest {
+
+    @Test
+    void shouldCompilePlanOncePerFilterAndEntity() {
+        // When
+        SpecificationBuilder.FilterPlan first = SpecificationBuilder.planFor(BookDto.Filter.class, Book.class);
+        SpecificationBuilder.FilterPlan second = SpecificationBuilder.planFor(BookDto.Filter.class, Book.class);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(first.fields()).extracting(SpecificationBuilder.FieldPlan::path)
+                .containsExactlyInAnyOrder("title", "author", "isbn");
+    }
+
+    @Test
+    void shouldMapRelationshipIdFieldsToAssociations() {
+        // When
+        SpecificationBuilder.FilterPlan plan = SpecificationBuilder.planFor(LoanDto.Filter.class, Loan.class);
+
+        // Then
+        assertThat(plan.fields()).extracting(SpecificationBuilder.FieldPlan::path)
+                .containsExactlyInAnyOrder("user", "book");
+        assertThat(plan.fields()).extracting(SpecificationBuilder.FieldPlan::kind)
+                .containsOnly(SpecificationBuilder.Kind.RELATIONSHIP_ID);
+    }
+
+    @Test
+    void shouldCompileEnumFieldsAndReadValues() {
+        // Given
+        SpecificationBuilder.FilterPlan plan = SpecificationBuilder.planFor(UserDto.Filter.class, User.class);
+        UserDto.Filter filter = new UserDto.Filter("john", null, "member", null);
+
+        // Then
+        assertThat(plan.fields()).filteredOn(f -> f.path().equals("role"))
+                .extracting(SpecificationBuilder.FieldPlan::kind)
+                .containsExactly(SpecificationBuilder.Kind.ENUM);
+        assertThat(plan.fields()).filteredOn(f -> f.path().equals("name"))
+                .extracting(f -> f.read(filter))
+                .containsExactly("john");
+    }
+
+    @Test
+    void shouldCompileMatchFieldSeparatelyFromPredicates() {
+        // Given
+        SpecificationBuilder.FilterPlan plan = SpecificationBuilder.planFor(BookDto.Filter.class, Book.class);
+        BookDto.Filter filter = new BookDto.Filter("clean", null, null, "prefix");
+
+        // Then
+        assertThat(plan.fields()).extracting(SpecificationBuilder.FieldPlan::path)
+                .doesNotContain(SpecificationBuilder.MATCH_FIELD);
+        assertThat(plan.matchMode(filter)).isEqualTo(MatchMode.PREFIX);
+        assertThat(plan.matchMode(new BookDto.Filter())).isEqualTo(MatchMode.CONTAINS);
+    }
+
+    @Test
+    void shouldFallBackToContains_whenMatchModeIsUnknown() {
+        assertThat(MatchMode.from("Exact")).isEqualTo(MatchMode.EXACT);
+        assertThat(MatchMode.from("fuzzy")).isEqualTo(MatchMode.CONTAINS);
+        assertThat(MatchMode.from(null)).isEqualTo(MatchMode.CONTAINS);
+    }
+
+    @Test
+    void shouldEscapeLikeWildcards() {
+        assertThat(SpecificationBuilder.escapeLike("50%_off\\")).isEqualTo("50\\%\\_off\\\\");
+        assertThat(SpecificationBuilder.escapeLike("plain")).isEqualTo("plain");
+    }
+}